@@ -0,0 +1,91 @@
+package com.northcoders.recordapi.benchmark;
+
+import com.northcoders.recordapi.config.AlbumCacheProperties;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.service.AlbumCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of the album cache hot paths at different sizes and thread counts
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AlbumCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private AlbumCache albumCache;
+    private Album[] albums;
+
+    @Setup
+    public void setUp() {
+        AlbumCacheProperties properties = new AlbumCacheProperties();
+        properties.setMaximumSize(size);
+        albumCache = new AlbumCache(properties);
+
+        Artist artist = new Artist(1L, "Benchmark Artist", null);
+        albums = new Album[size];
+        for (int i = 0; i < size; i++) {
+            Album album = new Album("Album " + i, artist, Genre.ROCK, 2000, 10, 9.99);
+            album.setAlbumId((long) i);
+            album.setVersion(1L);
+            albums[i] = album;
+            albumCache.putAlbum((long) i, album);
+        }
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Album getAlbum() {
+        return albumCache.getAlbum(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Album getAlbumContended() {
+        return albumCache.getAlbum(randomId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void putAlbum() {
+        long id = randomId();
+        albumCache.putAlbum(id, albums[(int) id]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void putAlbumContended() {
+        long id = randomId();
+        albumCache.putAlbum(id, albums[(int) id]);
+    }
+
+    // Mixed 90% reads / 10% writes, closest to production traffic
+    @Benchmark
+    @Threads(8)
+    public Object readMostly() {
+        long id = randomId();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            albumCache.putAlbum(id, albums[(int) id]);
+            return null;
+        }
+        return albumCache.getAlbum(id);
+    }
+}
@@ -0,0 +1,90 @@
+package com.northcoders.recordapi.benchmark;
+
+import com.northcoders.recordapi.RecordApiApplication;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.ArtistRepository;
+import com.northcoders.recordapi.service.AlbumService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// AlbumServiceImpl.getAlbumById against an in-memory H2 database, with and without the album cache
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AlbumServiceBenchmark {
+
+    private static final int ALBUMS = 10_000;
+
+    // A maximum size of zero turns the cache off, so every call goes to the database
+    @Param({"cached", "uncached"})
+    private String cache;
+
+    private ConfigurableApplicationContext context;
+    private AlbumService albumService;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RecordApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.profiles.active=benchmark",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=warn",
+                        "logging.level.com.northcoders.recordapi=warn",
+                        "recordapi.cache.album.maximum-size=" + ("cached".equals(cache) ? ALBUMS : 0))
+                .run();
+        albumService = context.getBean(AlbumService.class);
+
+        Artist artist = context.getBean(ArtistRepository.class).save(new Artist(null, "Benchmark Artist", null));
+        List<Album> albums = new ArrayList<>();
+        for (int i = 0; i < ALBUMS; i++) {
+            albums.add(new Album("Album " + i, artist, Genre.ROCK, 2000, 10, 9.99));
+        }
+        ids = context.getBean(AlbumRepository.class).saveAll(albums).stream()
+                .mapToLong(Album::getAlbumId)
+                .toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<Album> getAlbumById() {
+        return albumService.getAlbumById(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Album> getAlbumByIdContended() {
+        return albumService.getAlbumById(randomId());
+    }
+}
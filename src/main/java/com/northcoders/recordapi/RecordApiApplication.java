@@ -2,11 +2,13 @@ package com.northcoders.recordapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import com.northcoders.recordapi.model.GenreValid; // Import the custom annotation
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@ConfigurationPropertiesScan
 public class RecordApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,23 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.cache.album")
+public class AlbumCacheProperties {
+
+    // Upper bound on cached albums, once reached entries are evicted (W-TinyLFU)
+    private long maximumSize = 10_000;
+
+    // Entry is dropped this long after it was written, zero disables the limit
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    // Entry is dropped this long after it was last read, zero disables the limit
+    private Duration expireAfterAccess = Duration.ofSeconds(20);
+
+    // Reload a hot entry in the background this long before its write expiry, zero disables it
+    private Duration refreshAhead = Duration.ZERO;
+}
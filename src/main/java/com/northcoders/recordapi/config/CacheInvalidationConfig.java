@@ -0,0 +1,29 @@
+package com.northcoders.recordapi.config;
+
+import com.northcoders.recordapi.service.CacheInvalidationBus;
+import com.northcoders.recordapi.service.LoopbackInvalidationBus;
+import com.northcoders.recordapi.service.PostgresInvalidationBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class CacheInvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "recordapi.cache.invalidation.transport", havingValue = "postgres")
+    public CacheInvalidationBus postgresInvalidationBus(CacheInvalidationProperties properties,
+                                                        JdbcTemplate jdbcTemplate,
+                                                        DataSourceProperties dataSourceProperties) {
+        return new PostgresInvalidationBus(jdbcTemplate, dataSourceProperties,
+                properties.getChannel(), properties.getMaxIdsPerMessage());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "recordapi.cache.invalidation.transport", havingValue = "loopback", matchIfMissing = true)
+    public CacheInvalidationBus loopbackInvalidationBus(CacheInvalidationProperties properties) {
+        return new LoopbackInvalidationBus(properties.getMaxIdsPerMessage());
+    }
+}
@@ -0,0 +1,29 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.cache.invalidation")
+public class CacheInvalidationProperties {
+
+    public enum Transport {
+        // In-process only, for a single node and for tests
+        LOOPBACK,
+        // Postgres LISTEN/NOTIFY, every node connected to the same database hears every other node
+        POSTGRES
+    }
+
+    private Transport transport = Transport.LOOPBACK;
+
+    // Postgres channel the nodes NOTIFY and LISTEN on
+    private String channel = "album_invalidation";
+
+    // Evictions queued within this window go out together, repeated ids only once
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    // Keeps a NOTIFY payload well under Postgres' 8000 byte limit
+    private int maxIdsPerMessage = 300;
+}
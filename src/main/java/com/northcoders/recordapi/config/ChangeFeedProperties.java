@@ -0,0 +1,35 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.changes")
+public class ChangeFeedProperties {
+
+    // How often outbox rows are moved into the feed
+    private Duration relayInterval = Duration.ofMillis(200);
+
+    // How often each node reads the feed for changes relayed elsewhere, bounds live latency across nodes
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    // Outbox rows relayed per transaction
+    private int relayBatchSize = 500;
+
+    // Superseded changes younger than this are kept, so live consumers still see every step
+    private Duration compactAfter = Duration.ofHours(1);
+
+    // Delete tombstones are kept this long, a consumer further behind has to resync from /album/export
+    private Duration deleteRetention = Duration.ofDays(7);
+
+    private Duration compactionInterval = Duration.ofMinutes(5);
+
+    // Changes waiting for one stream client, one that falls this far behind is disconnected and reconnects
+    // Must hold a backlog page (500), the changes relayed while a client finishes catching up are queued at once
+    private int queueCapacity = 1000;
+
+    // Stream connections are closed after this long, clients reconnect with Last-Event-ID
+    private Duration sseTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,46 @@
+package com.northcoders.recordapi.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.http-cache")
+public class HttpCacheProperties {
+
+    // GET /album/{id}
+    private Policy album = new Policy(Duration.ZERO, true, false);
+
+    // GET /album and /album/search
+    private Policy albumList = new Policy(Duration.ZERO, true, false);
+
+    // GET /album/suggest, answers barely change between requests
+    private Policy suggest = new Policy(Duration.ofSeconds(30), false, false);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Policy {
+
+        // How long a client or proxy may reuse a response without asking again
+        private Duration maxAge = Duration.ZERO;
+
+        // Once stale, the response must be revalidated (If-None-Match) before reuse
+        private boolean mustRevalidate = true;
+
+        // Only the client may store the response, not shared proxies
+        private boolean privateOnly = false;
+
+        public CacheControl toCacheControl() {
+            CacheControl cacheControl = CacheControl.maxAge(maxAge);
+            if (mustRevalidate) {
+                cacheControl = cacheControl.mustRevalidate();
+            }
+            return privateOnly ? cacheControl.cachePrivate() : cacheControl.cachePublic();
+        }
+    }
+}
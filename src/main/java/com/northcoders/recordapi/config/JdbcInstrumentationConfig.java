@@ -0,0 +1,40 @@
+package com.northcoders.recordapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Statement timing and the slow-query log, pool metrics come from Boot (hikaricp.*) or ReplicationConfig
+@Configuration
+@ConditionalOnProperty(name = "recordapi.jdbc.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcInstrumentationConfig {
+
+    // Static, so it is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+                    return new SlowQueryDataSource(dataSource, slowQueryLog);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(SlowQueryProperties properties, MeterRegistry meterRegistry) {
+        return new SlowQueryLog(properties, meterRegistry);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+}
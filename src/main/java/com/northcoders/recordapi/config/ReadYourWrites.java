@@ -0,0 +1,82 @@
+package com.northcoders.recordapi.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// Keeps a client on the primary for a short while after it wrote, so it never reads its own change as missing
+public final class ReadYourWrites {
+
+    static final String COOKIE_NAME = "rw-primary-until";
+
+    private static final ThreadLocal<Boolean> STICKY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isSticky() {
+        return Boolean.TRUE.equals(STICKY.get());
+    }
+
+    // Runs the reads in 'work' on the primary, for results that outlive replica lag (cache fills, broadcasts)
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = STICKY.get();
+        STICKY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                STICKY.remove();
+            } else {
+                STICKY.set(previous);
+            }
+        }
+    }
+
+    // Called when a read-write connection is handed out during an HTTP request
+    static void markWrite(Duration window) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return; // Scheduled jobs and other background work have no client to stick
+        }
+        STICKY.set(Boolean.TRUE); // Later reads in this request
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            // Later requests from this client, until the replicas have caught up
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(System.currentTimeMillis() + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    static void begin(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return;
+        }
+        Arrays.stream(request.getCookies())
+                .filter(cookie -> COOKIE_NAME.equals(cookie.getName()))
+                .findFirst()
+                .ifPresent(cookie -> {
+                    try {
+                        if (Long.parseLong(cookie.getValue()) > System.currentTimeMillis()) {
+                            STICKY.set(Boolean.TRUE);
+                        }
+                    } catch (NumberFormatException e) {
+                        // Not ours, ignore it
+                    }
+                });
+    }
+
+    static void end() {
+        STICKY.remove();
+    }
+}
@@ -0,0 +1,24 @@
+package com.northcoders.recordapi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Applies the read-your-writes cookie to the request thread and clears it afterwards
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadYourWrites.begin(request);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+}
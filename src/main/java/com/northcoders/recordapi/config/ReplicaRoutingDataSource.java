@@ -0,0 +1,94 @@
+package com.northcoders.recordapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only transactions go to a replica, everything else to the primary
+// Must sit behind a LazyConnectionDataSourceProxy, so the read-only flag is set before a connection is chosen
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<String> replicaKeys;
+    private final Duration readYourWritesWindow;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter replicaFailovers;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.readYourWritesWindow = readYourWritesWindow;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put("replica-" + i, replicas.get(i));
+        }
+        this.replicaKeys = targets.keySet().stream().map(String::valueOf).filter(key -> !PRIMARY.equals(key)).sorted().toList();
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.primaryConnections = counter(meterRegistry, "primary");
+        this.replicaConnections = counter(meterRegistry, "replica");
+        this.replicaFailovers = Counter.builder("db.routing.replica.failovers")
+                .description("Reads sent to the primary because a replica refused a connection")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("db.routing.connections")
+                .description("Connections handed out by the routing data source")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.markWrite(readYourWritesWindow);
+            }
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || ReadYourWrites.isSticky()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = target.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            // A replica being down costs us read capacity, not availability
+            logger.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+            replicaFailovers.increment();
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.northcoders.recordapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Replaces Boot's single DataSource with primary + replicas when replication is enabled
+@Configuration
+@ConditionalOnProperty(name = "recordapi.datasource.replication.enabled", havingValue = "true")
+public class ReplicationConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReplicationProperties replication,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        // Boot only binds hikaricp.* meters for pools it can reach through the DataSource bean, these sit behind the router
+        MicrometerMetricsTrackerFactory poolMetrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        primary.setMetricsTrackerFactory(poolMetrics);
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replication.getReplicas().size(); i++) {
+            ReplicationProperties.Replica replica = replication.getReplicas().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            pool.setPoolName("replica-" + i);
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(poolMetrics);
+            replicas.add(pool);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+                replication.getReadYourWritesWindow(), meterRegistry);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
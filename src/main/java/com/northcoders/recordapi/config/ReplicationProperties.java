@@ -0,0 +1,29 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.datasource.replication")
+public class ReplicationProperties {
+
+    // Off by default, every query then uses spring.datasource.* as before
+    private boolean enabled = false;
+
+    // Read-only transactions are spread over these, round robin
+    private List<Replica> replicas = new ArrayList<>();
+
+    // After a write, the same client reads from the primary this long, longer than the usual replica lag
+    private Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
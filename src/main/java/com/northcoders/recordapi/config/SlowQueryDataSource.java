@@ -0,0 +1,107 @@
+package com.northcoders.recordapi.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Wraps connections so every statement is timed and its bind parameters are at hand if it turns out slow
+// Sits outside the pool, so waiting for a connection is not counted as statement time
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    // The log is looked up lazily, the data source is created before the meter registry
+    public SlowQueryDataSource(DataSource targetDataSource, ObjectProvider<SlowQueryLog> slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{method.getReturnType()},
+                                new StatementHandler(statement, sql));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private String sql;
+        private int batchSize;
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null && args.length == 1) {
+                    sql = (String) args[0]; // Plain statement batches, the last one stands for the rest
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (EXECUTE_METHODS.contains(name)) {
+                if (args != null && args.length > 0 && args[0] instanceof String text) {
+                    sql = text;
+                }
+                long start = System.nanoTime();
+                try {
+                    return SlowQueryDataSource.invoke(statement, method, args);
+                } finally {
+                    slowQueryLog.getObject().record(sql, parameters, batchSize, System.nanoTime() - start);
+                    if (name.startsWith("executeBatch") || name.startsWith("executeLargeBatch")) {
+                        batchSize = 0;
+                    }
+                }
+            }
+            return SlowQueryDataSource.invoke(statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.northcoders.recordapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Times every JDBC statement and keeps the slow ones, with bind parameters and the application method that ran them
+public class SlowQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final String APPLICATION_PACKAGE = "com.northcoders.recordapi.";
+
+    public record Entry(Instant at, long millis, String sql, List<String> parameters, int batchSize, String caller) {
+    }
+
+    private final SlowQueryProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer statementTimer;
+    private final long thresholdNanos;
+    private final Deque<Entry> recent = new ArrayDeque<>();
+
+    public SlowQueryLog(SlowQueryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        // Time spent executing SQL, next to hikaricp.connections.acquire for the time spent waiting for a connection
+        this.statementTimer = Timer.builder("jdbc.statements")
+                .description("JDBC statement execution time, excluding connection acquisition")
+                .register(meterRegistry);
+    }
+
+    void record(String sql, Map<Integer, Object> parameters, int batchSize, long nanos) {
+        statementTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        // Only slow statements pay for the stack walk
+        String caller = caller();
+        Entry entry = new Entry(Instant.now(), TimeUnit.NANOSECONDS.toMillis(nanos), sql, render(parameters),
+                batchSize, caller);
+        Counter.builder("jdbc.statements.slow")
+                .description("Statements slower than recordapi.jdbc.slow-query.threshold")
+                .tag("caller", caller)
+                .register(meterRegistry)
+                .increment();
+        synchronized (recent) {
+            if (recent.size() == properties.getRetained()) {
+                recent.removeFirst();
+            }
+            recent.addLast(entry);
+        }
+        logger.warn("Slow statement ({} ms) from {}: {} {}{}", entry.millis(), caller, sql, entry.parameters(),
+                batchSize > 0 ? " batch of " + batchSize : "");
+    }
+
+    public List<Entry> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    private List<String> render(Map<Integer, Object> parameters) {
+        List<String> rendered = new ArrayList<>(parameters.size());
+        for (Object value : parameters.values()) {
+            String text = value instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : String.valueOf(value);
+            if (text.length() > properties.getMaxParameterLength()) {
+                text = text.substring(0, properties.getMaxParameterLength()) + "...";
+            }
+            rendered.add(text);
+        }
+        return rendered;
+    }
+
+    // The innermost application frame, e.g. AlbumServiceImpl.getAlbumsAfter, repository interfaces are JDK proxies
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE))
+                .filter(frame -> !isInstrumentation(frame.getClassName()))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    private static boolean isInstrumentation(String className) {
+        return isOrNestedIn(className, SlowQueryLog.class) || isOrNestedIn(className, SlowQueryDataSource.class);
+    }
+
+    private static boolean isOrNestedIn(String className, Class<?> type) {
+        return className.equals(type.getName()) || className.startsWith(type.getName() + "$");
+    }
+}
@@ -0,0 +1,23 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.jdbc.slow-query")
+public class SlowQueryProperties {
+
+    // Read by JdbcInstrumentationConfig, off removes the statement wrapper altogether
+    private boolean enabled = true;
+
+    // Statements running at least this long are logged with their bind parameters
+    private Duration threshold = Duration.ofMillis(200);
+
+    // How many of the latest slow statements /actuator/slowqueries keeps
+    private int retained = 100;
+
+    // Longer bind values are cut, so a blob or a long payload does not flood the log
+    private int maxParameterLength = 100;
+}
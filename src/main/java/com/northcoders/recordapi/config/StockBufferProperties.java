@@ -0,0 +1,37 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.stock.buffer")
+public class StockBufferProperties {
+
+    // Where the adjustment journal segments are written, one directory per running instance
+    private Path journalDirectory = Path.of("data/stock-journal");
+
+    // Pending adjustments are written to the database at least this often
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // Flush early once this many adjustments are pending
+    private int flushThreshold = 5_000;
+
+    // Force every journal write to disk, survives power loss as well as a process crash but is much slower
+    private boolean fsync = false;
+
+    // Key of this instance's row in the checkpoint table, must stay the same across restarts and differ between nodes
+    private String checkpointName = hostName();
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return System.getenv("HOSTNAME"); // Left unset when missing too, startup then fails
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.northcoders.recordapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recordapi.stock.stream")
+public class StockStreamProperties {
+
+    // Events waiting for one client, a client that falls this far behind is disconnected
+    private int queueCapacity = 64;
+
+    // Album ids one subscription may ask for
+    private int maxAlbumsPerSubscription = 200;
+
+    // Connections are closed after this long, clients simply reconnect
+    private Duration timeout = Duration.ofMinutes(30);
+}
@@ -1,57 +1,303 @@
 package com.northcoders.recordapi.controller;
 
-import com.northcoders.recordapi.exception.AlbumAlreadyExistsException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.config.HttpCacheProperties;
+import com.northcoders.recordapi.config.StockStreamProperties;
+import com.northcoders.recordapi.dto.AlbumChangeEvent;
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.dto.AlbumRepresentation;
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.dto.AlbumSuggestion;
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.dto.BulkImportResult;
+import com.northcoders.recordapi.dto.StockAdjustmentRequest;
+import com.northcoders.recordapi.dto.StockPriceEvent;
+import com.northcoders.recordapi.dto.StockReservation;
+import com.northcoders.recordapi.dto.StockReservationRequest;
 import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.service.AlbumChangeFeed;
 import com.northcoders.recordapi.service.AlbumService;
+import com.northcoders.recordapi.service.StockPriceBroadcaster;
 import com.northcoders.recordapi.service.AlbumServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // The reactive profile routes through AlbumRouter
 @RequestMapping("/api/v1")
 public class AlbumController {
 
 //    private static final Logger logger = LoggerFactory.getLogger(AlbumServiceImpl.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_IMPORT_ROWS = 100_000;
+
     @Autowired
     private AlbumService albumService;
 
-    // Get all albums
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private HttpCacheProperties httpCacheProperties;
+
+    @Autowired
+    private AlbumChangeFeed albumChangeFeed;
+
+    @Autowired
+    private StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Autowired
+    private StockStreamProperties stockStreamProperties;
+
+    // Get albums one page at a time, the Link header points at the next page
     @GetMapping("/album")
-    public ResponseEntity<List<Album>> getAllAlbums() {
-        List<Album> albums = albumService.getAllAlbums();
-        return ResponseEntity.ok(albums);
+    public ResponseEntity<List<AlbumSummary>> getAllAlbums(@RequestParam(defaultValue = "0") Long after,
+                                                    @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Ask for one extra row so we know whether another page exists
+        return pageResponse(albumService.getAlbumsAfter(after, pageSize + 1), pageSize,
+                httpCacheProperties.getAlbumList().toCacheControl());
+    }
+
+    // Filter albums by genre, artist, release year, price and stock, paged like the list above
+    @GetMapping("/album/search")
+    public ResponseEntity<List<AlbumSummary>> searchAlbums(AlbumSearchCriteria criteria,
+                                                    @RequestParam(defaultValue = "0") Long after,
+                                                    @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        return pageResponse(albumService.searchAlbums(criteria, after, pageSize + 1), pageSize,
+                httpCacheProperties.getAlbumList().toCacheControl());
+    }
+
+    // Autocomplete on title and artist name, prefix and typo tolerant, never touches the database
+    @GetMapping("/album/suggest")
+    public ResponseEntity<List<AlbumSuggestion>> suggestAlbums(@RequestParam("q") String query,
+                                                               @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(httpCacheProperties.getSuggest().toCacheControl())
+                .body(albumService.suggestAlbums(query, Math.clamp(limit, 1, MAX_SUGGESTIONS)));
+    }
+
+    // A matching If-None-Match gets a 304 from Spring, the page is then never serialised
+    private ResponseEntity<List<AlbumSummary>> pageResponse(List<AlbumSummary> albums, int pageSize,
+                                                            CacheControl cacheControl) {
+        if (albums.size() <= pageSize) {
+            return ResponseEntity.ok()
+                    .eTag(pageETag(albums, false))
+                    .cacheControl(cacheControl)
+                    .body(albums);
+        }
+        List<AlbumSummary> page = albums.subList(0, pageSize);
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", page.get(pageSize - 1).albumId())
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .eTag(pageETag(page, true))
+                .cacheControl(cacheControl)
+                .body(page);
+    }
+
+    // Changes when any album on the page is added, removed or updated
+    private static String pageETag(List<AlbumSummary> page, boolean hasNext) {
+        long hash = hasNext ? 1 : 0;
+        for (AlbumSummary album : page) {
+            hash = 31 * hash + album.albumId();
+            hash = 31 * hash + (album.version() != null ? album.version() : 0);
+        }
+        // Weak, so the container may still compress the page (Tomcat leaves strong ETags uncompressed)
+        return "W/\"p" + page.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // Album changes after the given feed sequence, oldest first
+    // Compaction may leave out changes superseded by a later one to the same album, never the latest,
+    // and drops delete tombstones after recordapi.changes.delete-retention
+    @GetMapping("/album/changes")
+    public ResponseEntity<List<AlbumChangeEvent>> getAlbumChanges(@RequestParam(defaultValue = "0") Long since,
+                                                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(albumChangeFeed.getChangesSince(since, Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+    }
+
+    // Same feed as server-sent events, a reconnecting client resumes from its Last-Event-ID
+    @GetMapping(value = "/album/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlbumChanges(@RequestParam(required = false) Long since,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since != null ? since : 0;
+        return albumChangeFeed.subscribe(from);
     }
 
-    // Get album by ID
+    // Live stock and price of the given albums and/or genres as server-sent events
+    // Starts with the current state of each requested album, then pushes every change
+    @GetMapping(value = "/album/stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStock(@RequestParam(defaultValue = "") Set<Long> albumIds,
+                                  @RequestParam(defaultValue = "") Set<Genre> genres) {
+        if (albumIds.isEmpty() && genres.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Subscribe to at least one album id or genre");
+        }
+        if (albumIds.size() > stockStreamProperties.getMaxAlbumsPerSubscription()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + stockStreamProperties.getMaxAlbumsPerSubscription() + " album ids per subscription");
+        }
+        List<StockPriceEvent> initial = albumIds.stream()
+                .map(albumService::getAlbumById)
+                .flatMap(Optional::stream)
+                .map(StockPriceEvent::of)
+                .toList();
+        return stockPriceBroadcaster.subscribe(albumIds, genres, initial);
+    }
+
+    // Stream the whole catalogue as newline-delimited JSON, memory use does not grow with its size
+    @GetMapping(value = "/album/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportAlbums(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        albumService.exportAlbums(response.getOutputStream());
+    }
+
+    // Get album by ID, the body is the cached JSON (gzipped when the client accepts it), never re-serialised
     @GetMapping("album/{id}")
-    public ResponseEntity<Album> getAlbumById(@PathVariable Long id) {
-        Album album = albumService.getAlbumById(id)
+    public ResponseEntity<byte[]> getAlbumById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                               String acceptEncoding,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        AlbumRepresentation representation = albumService.getCachedAlbum(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Album not found"));
-        return ResponseEntity.ok(album);
+        Album album = representation.album();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // Each encoding is a different representation, so it gets its own strong ETag
+        String eTag = "\"" + album.getAlbumId() + "-" + representation.version() + (gzip ? "-gz" : "") + "\"";
+        // Compared before any body is touched, a revalidation costs no serialisation or copying
+        boolean notModified = eTagMatches(ifNoneMatch, eTag);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(httpCacheProperties.getAlbum().toCacheControl());
+        if (album.getUpdatedAt() != null) {
+            // Spring still answers a matching If-Modified-Since with a 304
+            response.lastModified(album.getUpdatedAt().atZone(ZoneId.systemDefault()));
+        }
+        if (notModified) {
+            return response.build();
+        }
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(representation.gzippedJson().get());
+        }
+        return response.body(representation.json().get());
+    }
+
+    // Accept-Encoding with q-values: "gzip;q=0" refuses gzip, "*" covers it only when gzip is not listed itself
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0; // Unreadable weight, do not guess the client wants it
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        double q = gzip != null ? gzip : wildcard != null ? wildcard : 0;
+        return q > 0;
+    }
+
+    // Weak comparison, which is what If-None-Match uses on GET
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // Create a new album
     @PostMapping("/album")
-    public ResponseEntity<Album> createAlbum(@RequestBody Album album) {
-        try {
-            Album savedAlbum = albumService.createAlbum(album);
-            return new ResponseEntity<>(savedAlbum, HttpStatus.CREATED);
-        } catch (AlbumAlreadyExistsException ex) {
-            // Log the detailed exception
-//            logger.error("Conflict Error: {}", ex.getMessage());
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(null); // Include detailed error message here if needed
-        } catch (Exception e) {
-//            logger.error("Unexpected Error: ", e);
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+    public ResponseEntity<Album> createAlbum(@RequestBody @Valid Album album) {
+        // Duplicates and unknown artists are turned into 409/404 by GlobalExceptionHandler
+        Album savedAlbum = albumService.createAlbum(album);
+        return new ResponseEntity<>(savedAlbum, HttpStatus.CREATED);
+    }
+
+    // Create or update many albums at once from a JSON array
+    @PostMapping(value = "/album/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResult> importAlbums(HttpServletRequest request) throws IOException {
+        return importRows(request, true);
+    }
+
+    // Same as above, one album per line
+    @PostMapping(value = "/album/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportResult> importAlbumsNdjson(HttpServletRequest request) throws IOException {
+        return importRows(request, false);
+    }
+
+    // Both forms are parsed as the import goes instead of up front, Jackson unwraps an array element by element.
+    // Invalid rows give 400 with errors keyed by row index like "[3].title", malformed input 400, too many rows 413
+    private ResponseEntity<BulkImportResult> importRows(HttpServletRequest request, boolean array) throws IOException {
+        String format = array ? "JSON array" : "NDJSON";
+        try (MappingIterator<AlbumImportRow> iterator = objectMapper.readerFor(AlbumImportRow.class)
+                .readValues(request.getInputStream())) {
+            if (iterator.getParser().getParsingContext().inArray() != array) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected albums as " + format);
+            }
+            return ResponseEntity.ok(albumService.importAlbums(ImportRowReader.of(iterator, validator, MAX_IMPORT_ROWS)));
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed " + format + ": " + e.getOriginalMessage());
         }
     }
 
@@ -66,6 +312,20 @@ public class AlbumController {
         }
     }
 
+    // Reserve stock for a purchase, 409 when not enough is left
+    @PostMapping("album/{id}/reserve")
+    public ResponseEntity<StockReservation> reserveStock(@PathVariable Long id,
+                                                         @RequestBody @Valid StockReservationRequest request) {
+        return ResponseEntity.ok(albumService.reserveStock(id, request.quantity()));
+    }
+
+    // Queue a stock change for write-behind, 202 once it is journaled
+    @PostMapping("album/{id}/stock-adjustments")
+    public ResponseEntity<Void> adjustStock(@PathVariable Long id, @RequestBody @Valid StockAdjustmentRequest request) {
+        albumService.adjustStock(id, request.delta());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
     // Delete an album by ID
     @DeleteMapping("album/{id}")
     public ResponseEntity<Void> deleteAlbum(@PathVariable Long id) {
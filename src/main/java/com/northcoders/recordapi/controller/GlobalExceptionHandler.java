@@ -2,6 +2,8 @@ package com.northcoders.recordapi.controller;
 
 import com.northcoders.recordapi.exception.AlbumAlreadyExistsException;
 import com.northcoders.recordapi.exception.ArtistNotFoundException;
+import com.northcoders.recordapi.exception.InsufficientStockException;
+import com.northcoders.recordapi.exception.InvalidImportException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -60,6 +63,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorDetails);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Map<String, String>> handleInsufficientStock(InsufficientStockException ex) {
+        Map<String, String> errorDetails = new HashMap<>();
+        errorDetails.put("error", "Conflict");
+        errorDetails.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorDetails);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidImport(InvalidImportException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getErrors());
+    }
+
     @ExceptionHandler(AlbumNotFoundException.class)
     public ResponseEntity<Object> handleAlbumNotFound(AlbumNotFoundException ex) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -79,5 +95,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
     }
 
+    // Keep the status a controller asked for, instead of the 500 from handleGeneralException
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleResponseStatus(ResponseStatusException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", ex.getReason());
+        return ResponseEntity.status(ex.getStatusCode()).body(errorResponse);
+    }
 }
 
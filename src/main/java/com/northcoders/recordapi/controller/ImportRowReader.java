@@ -0,0 +1,108 @@
+package com.northcoders.recordapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.exception.InvalidImportException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Hands bulk import rows to the service as they are read, so an upload is never held in memory as a whole.
+// Invalid rows are collected and thrown once the input is used up, which rolls back what the service wrote so far.
+class ImportRowReader implements Iterator<AlbumImportRow> {
+
+    // Where the rows come from, a parse error surfaces as a JsonProcessingException
+    interface Source {
+        boolean hasNext() throws IOException;
+
+        AlbumImportRow next() throws IOException;
+    }
+
+    private final Source source;
+    private final Validator validator;
+    private final int maxRows;
+    private final Map<String, String> errors = new LinkedHashMap<>(); // Keyed by row index like "[3].title"
+    private int index = -1; // Index of the last row read
+    private AlbumImportRow next;
+
+    ImportRowReader(Source source, Validator validator, int maxRows) {
+        this.source = source;
+        this.validator = validator;
+        this.maxRows = maxRows;
+    }
+
+    // One album per line or array element, parsed as the service asks for the next row
+    static ImportRowReader of(MappingIterator<AlbumImportRow> iterator, Validator validator, int maxRows) {
+        return new ImportRowReader(new Source() {
+            @Override
+            public boolean hasNext() throws IOException {
+                return iterator.hasNextValue();
+            }
+
+            @Override
+            public AlbumImportRow next() throws IOException {
+                return iterator.nextValue();
+            }
+        }, validator, maxRows);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            AlbumImportRow row;
+            try {
+                if (!source.hasNext()) {
+                    if (!errors.isEmpty()) {
+                        throw new InvalidImportException(errors);
+                    }
+                    return false;
+                }
+                if (index + 1 >= maxRows) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "An import holds at most " + maxRows + " albums");
+                }
+                row = source.next();
+                index++;
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Row [" + (index + 1) + "] is not a valid album: " + e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (row == null) {
+                errors.put("[" + index + "]", "Row must not be null");
+                continue;
+            }
+            Set<ConstraintViolation<AlbumImportRow>> violations = validator.validate(row);
+            for (ConstraintViolation<AlbumImportRow> violation : violations) {
+                errors.put("[" + index + "]." + violation.getPropertyPath(), violation.getMessage());
+            }
+            // After the first invalid row the rest are only validated, the import is rolled back anyway
+            if (errors.isEmpty()) {
+                next = row;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public AlbumImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        AlbumImportRow row = next;
+        next = null;
+        return row;
+    }
+}
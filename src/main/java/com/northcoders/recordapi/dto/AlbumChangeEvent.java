@@ -0,0 +1,21 @@
+package com.northcoders.recordapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.northcoders.recordapi.model.AlbumChange;
+import com.northcoders.recordapi.model.AlbumChangeType;
+
+import java.time.LocalDateTime;
+
+// One entry of the change feed, album is the album as it was right after the change (null for deletes)
+public record AlbumChangeEvent(Long sequence,
+                               Long albumId,
+                               AlbumChangeType type,
+                               Long version,
+                               LocalDateTime occurredAt,
+                               @JsonRawValue String album) {
+
+    public static AlbumChangeEvent of(AlbumChange change) {
+        return new AlbumChangeEvent(change.getFeedSequence(), change.getAlbumId(), change.getType(),
+                change.getVersion(), change.getOccurredAt(), change.getPayload());
+    }
+}
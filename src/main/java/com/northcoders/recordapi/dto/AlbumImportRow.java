@@ -0,0 +1,32 @@
+package com.northcoders.recordapi.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.model.GenreDeserializer;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+// One album in a bulk import, the artist is referenced by id
+public record AlbumImportRow(
+        @NotBlank(message = "Title must not be blank")
+        String title,
+
+        @NotNull(message = "Artist id is required")
+        Long artistId,
+
+        @NotNull(message = "Genre is required")
+        @JsonDeserialize(using = GenreDeserializer.class)
+        Genre genre,
+
+        @NotNull(message = "Release year is required")
+        Integer releaseYear,
+
+        @NotNull(message = "Stock is required")
+        @PositiveOrZero(message = "Stock must not be negative")
+        Integer stock,
+
+        @NotNull(message = "Price is required")
+        @PositiveOrZero(message = "Price must not be negative")
+        Double price) {
+}
@@ -0,0 +1,9 @@
+package com.northcoders.recordapi.dto;
+
+import com.northcoders.recordapi.model.Album;
+
+import java.util.function.Supplier;
+
+// A single album as GET /album/{id} serves it, the bodies are built on first use and shared while the version is cached
+public record AlbumRepresentation(Album album, Long version, Supplier<byte[]> json, Supplier<byte[]> gzippedJson) {
+}
@@ -0,0 +1,14 @@
+package com.northcoders.recordapi.dto;
+
+import com.northcoders.recordapi.model.Genre;
+
+// Optional filters for the album search, a null field is not filtered on
+public record AlbumSearchCriteria(
+        Genre genre,
+        Long artistId,
+        Integer minYear,
+        Integer maxYear,
+        Double minPrice,
+        Double maxPrice,
+        Boolean inStock) {
+}
@@ -0,0 +1,5 @@
+package com.northcoders.recordapi.dto;
+
+// Autocomplete hit, higher scores are better matches
+public record AlbumSuggestion(Long albumId, String title, String artist, int score) {
+}
@@ -0,0 +1,15 @@
+package com.northcoders.recordapi.dto;
+
+import com.northcoders.recordapi.model.Genre;
+
+// Row shown by the list and search endpoints, selected straight from the columns it needs
+public record AlbumSummary(Long albumId,
+                           String title,
+                           Long artistId,
+                           String artistName,
+                           Genre genre,
+                           int releaseYear,
+                           int stock,
+                           double price,
+                           Long version) {
+}
@@ -0,0 +1,5 @@
+package com.northcoders.recordapi.dto;
+
+// Outcome of a bulk import: rows inserted as new albums and rows that updated an existing one
+public record BulkImportResult(int created, int updated) {
+}
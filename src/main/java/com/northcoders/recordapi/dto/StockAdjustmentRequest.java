@@ -0,0 +1,24 @@
+package com.northcoders.recordapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// Positive to add stock, negative to take it away
+public record StockAdjustmentRequest(
+        @NotNull(message = "Delta is required")
+        @Min(value = -MAX_DELTA, message = "Delta must be at least -" + MAX_DELTA)
+        @Max(value = MAX_DELTA, message = "Delta must be at most " + MAX_DELTA)
+        Integer delta) {
+
+    public static final int MAX_DELTA = 10_000;
+
+    // A zero delta would be journaled and flushed for nothing
+    @JsonIgnore
+    @AssertTrue(message = "Delta must not be zero")
+    public boolean isNonZero() {
+        return delta == null || delta != 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.northcoders.recordapi.dto;
+
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Genre;
+
+// Pushed when an album's stock or price changes, clients keep the event with the highest version
+public record StockPriceEvent(Long albumId, Genre genre, int stock, double price, Long version) {
+
+    public static StockPriceEvent of(Album album) {
+        return new StockPriceEvent(album.getAlbumId(), album.getGenre(), album.getStock(), album.getPrice(),
+                album.getVersion());
+    }
+}
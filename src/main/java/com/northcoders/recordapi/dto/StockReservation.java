@@ -0,0 +1,5 @@
+package com.northcoders.recordapi.dto;
+
+// Outcome of a successful reservation, remainingStock is the stock right after it was taken
+public record StockReservation(Long albumId, int reserved, int remainingStock) {
+}
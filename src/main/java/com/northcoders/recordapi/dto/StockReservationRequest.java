@@ -0,0 +1,10 @@
+package com.northcoders.recordapi.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record StockReservationRequest(
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be at least 1")
+        Integer quantity) {
+}
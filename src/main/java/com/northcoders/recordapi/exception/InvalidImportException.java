@@ -0,0 +1,17 @@
+package com.northcoders.recordapi.exception;
+
+import java.util.Map;
+
+public class InvalidImportException extends RuntimeException {
+    private final Map<String, String> errors;
+
+    public InvalidImportException(Map<String, String> errors) {
+        super("Import rows failed validation: " + errors.keySet());
+        this.errors = errors;
+    }
+
+    // Messages keyed by row index and field, like "[3].title"
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
@@ -5,24 +5,40 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Second-level cache, region named after the class
 @Data
 @Table(uniqueConstraints = {
         @UniqueConstraint(columnNames = {"title", "artist_id", "releaseYear"})
+}, indexes = {
+        // Back the search filters with range scans instead of full table scans
+        @Index(name = "idx_album_genre", columnList = "genre"),
+        @Index(name = "idx_album_release_year", columnList = "releaseYear"),
+        @Index(name = "idx_album_price", columnList = "price"),
+        @Index(name = "idx_album_artist_id", columnList = "artist_id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
 public class Album {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence hands out ids in blocks of 50, so inserts can be sent as JDBC batches.
+    // Databases from the IDENTITY days need db/upgrade/album-seq.sql so the sequence starts past the existing ids
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_seq")
+    @SequenceGenerator(name = "album_seq", sequenceName = "album_seq", allocationSize = 50)
     private Long albumId;
 
     @Column(nullable = false, length = 255)
@@ -30,10 +46,13 @@ public class Album {
     @NotBlank(message = "Title must not be blank")
     private String title;
 
-    @ManyToOne(fetch = FetchType.EAGER) // or LAZY or EAGER based on your need
+    // Loaded only when a query asks for it (entity graph or join), never one select per album
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "artist_id", nullable = false)
     @NotNull(message = "Artist is required")
     @JsonBackReference  // Prevent infinite recursion by not serializing this side
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Artist artist;
 
     @Enumerated(EnumType.STRING)
@@ -63,6 +82,13 @@ public class Album {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Bumped by JPA on every update, used to tell cached copies apart.
+    // Existing databases need db/upgrade/album-version.sql, ddl-auto=update leaves older rows at NULL
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     // Manually defined constructor (excluding 'id')
     public Album(String title, Artist artist, Genre genre, int releaseYear, int stock, double price) {
         this.title = title;
@@ -0,0 +1,50 @@
+package com.northcoders.recordapi.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbox row, written in the same transaction as the album change it describes
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_album_change_feed_sequence", columnList = "feedSequence", unique = true),
+        @Index(name = "idx_album_change_album_id", columnList = "albumId")
+})
+public class AlbumChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_change_seq")
+    @SequenceGenerator(name = "album_change_seq", sequenceName = "album_change_seq", allocationSize = 50)
+    private Long id;
+
+    // Position in the public feed, assigned by the relay in commit order, null until relayed
+    private Long feedSequence;
+
+    @Column(nullable = false)
+    private Long albumId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlbumChangeType type;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Album JSON after the change, null for deletes
+    @Column(length = 4000)
+    private String payload;
+
+    public AlbumChange(Long albumId, AlbumChangeType type, Long version, String payload) {
+        this.albumId = albumId;
+        this.type = type;
+        this.version = version;
+        this.payload = payload;
+        this.occurredAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,7 @@
+package com.northcoders.recordapi.model;
+
+public enum AlbumChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
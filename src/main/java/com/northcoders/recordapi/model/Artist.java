@@ -5,11 +5,17 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Looked up on every createAlbum, rarely written
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,5 +32,7 @@ public class Artist {
 
     @OneToMany(mappedBy = "artist", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference  // Manage forward relationship for serialization
+    @ToString.Exclude // toString/equals/hashCode must not load the whole collection
+    @EqualsAndHashCode.Exclude
     private List<Album> albums;
 }
@@ -0,0 +1,40 @@
+package com.northcoders.recordapi.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Buffered stock delta the database refused because it would take the stock below zero, kept for reconciliation
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_rejected_stock_adjustment_album_id", columnList = "albumId"))
+public class RejectedStockAdjustment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long albumId;
+
+    // Net of every adjustment to the album in the refused flush
+    @Column(nullable = false)
+    private long delta;
+
+    // Checkpoint name of the node whose flush refused it
+    @Column(nullable = false)
+    private String node;
+
+    @Column(nullable = false)
+    private LocalDateTime rejectedAt;
+
+    public RejectedStockAdjustment(Long albumId, long delta, String node, LocalDateTime rejectedAt) {
+        this.albumId = albumId;
+        this.delta = delta;
+        this.node = node;
+        this.rejectedAt = rejectedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.northcoders.recordapi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Last stock journal segment applied to the database, written in the same transaction as its updates
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalCheckpoint {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long segment;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,39 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.model.AlbumChange;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AlbumChangeRepository extends JpaRepository<AlbumChange, Long> {
+
+    // Outbox rows not yet in the feed, locked so relays on different nodes take turns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<AlbumChange> findByFeedSequenceIsNullOrderByIdAsc(Limit limit);
+
+    @Query("select max(c.feedSequence) from AlbumChange c")
+    Long findMaxFeedSequence();
+
+    // Feed page after the given position, walks the unique feed sequence index
+    List<AlbumChange> findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(Long since, Limit limit);
+
+    // Drops relayed changes that a later change to the same album supersedes, consumers still see the latest state
+    @Modifying
+    @Query("delete from AlbumChange c where c.feedSequence is not null and c.occurredAt < :before "
+            + "and exists (select n.id from AlbumChange n where n.albumId = c.albumId and n.feedSequence > c.feedSequence)")
+    int deleteSuperseded(LocalDateTime before);
+
+    // Nothing supersedes a delete, so tombstones are dropped once they are older than the retention
+    @Modifying
+    @Query("delete from AlbumChange c where c.feedSequence is not null and c.occurredAt < :before "
+            + "and c.type = com.northcoders.recordapi.model.AlbumChangeType.DELETED")
+    int deleteTombstones(LocalDateTime before);
+}
@@ -1,16 +1,58 @@
 package com.northcoders.recordapi.repository;
 
+import com.northcoders.recordapi.dto.AlbumSummary;
 import com.northcoders.recordapi.model.Album;
 import com.northcoders.recordapi.model.Artist;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface AlbumRepository extends JpaRepository<Album, Long> {
+public interface AlbumRepository extends JpaRepository<Album, Long>, JpaSpecificationExecutor<Album>, AlbumRepositoryCustom {
 
+    // Artist is fetched in the same select, cached albums never hold an uninitialised proxy
+    @Override
+    @EntityGraph(attributePaths = "artist")
+    Optional<Album> findById(Long id);
+
+    // Result ids go to the query cache, the albums themselves come from the second-level cache
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "album-natural-key")
+    })
     Optional<Album> findByTitleAndArtistAndReleaseYear(String title, Artist artist, int releaseYear);
 
-    // GET all albums with .findAll() is provided by JPA by default
+    // Keyset page: the next albums after the given id, walking the primary key index
+    @EntityGraph(attributePaths = "artist")
+    List<Album> findByAlbumIdGreaterThanOrderByAlbumIdAsc(Long albumId, Limit limit);
+
+    // Keyset page for the list endpoint, only the summary columns are selected
+    @Query("select new com.northcoders.recordapi.dto.AlbumSummary(a.albumId, a.title, ar.artistId, ar.name, "
+            + "a.genre, a.releaseYear, a.stock, a.price, a.version) "
+            + "from Album a join a.artist ar where a.albumId > :after order by a.albumId")
+    List<AlbumSummary> findSummariesAfter(Long after, Limit limit);
+
+    // Albums changed on another node, with their artists for the search index
+    @EntityGraph(attributePaths = "artist")
+    List<Album> findByAlbumIdIn(Collection<Long> albumIds);
+
+    // Candidates for clashing with a bulk import, exact (title, artist, year) matching happens in memory
+    List<Album> findByArtist_ArtistIdInAndTitleIn(Collection<Long> artistIds, Collection<String> titles);
+
+    // Whole catalogue as a database cursor, the driver fetches rows in chunks of 500
+    // Must be consumed inside a transaction and closed afterwards
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Album a join fetch a.artist order by a.albumId")
+    Stream<Album> streamAllBy();
 }
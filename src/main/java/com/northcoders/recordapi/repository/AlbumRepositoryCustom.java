@@ -0,0 +1,19 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.model.Album;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AlbumRepositoryCustom {
+
+    // Albums matching the specification as summaries in id order, a single select joining artist
+    List<AlbumSummary> findSummaries(Specification<Album> specification, int limit);
+
+    // Takes stock only if enough is left, returns 0 otherwise, so concurrent buyers can never oversell
+    // Bumping the version makes a concurrent full update of the same album fail instead of restoring old stock
+    // Managed copies of the album are not updated, callers re-read it with refresh
+    int decrementStock(Long id, int quantity, LocalDateTime now);
+}
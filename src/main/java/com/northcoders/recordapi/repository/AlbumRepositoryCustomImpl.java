@@ -0,0 +1,73 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AlbumRepositoryCustomImpl implements AlbumRepositoryCustom {
+
+    private static final String DECREMENT_STOCK =
+            "update album set stock = stock - ?, version = version + 1, updated_at = ? where album_id = ? and stock >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<AlbumSummary> findSummaries(Specification<Album> specification, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AlbumSummary> query = cb.createQuery(AlbumSummary.class);
+        Root<Album> album = query.from(Album.class);
+        Join<Album, Artist> artist = album.join("artist");
+        query.select(cb.construct(AlbumSummary.class,
+                album.get("albumId"),
+                album.get("title"),
+                artist.get("artistId"),
+                artist.get("name"),
+                album.get("genre"),
+                album.get("releaseYear"),
+                album.get("stock"),
+                album.get("price"),
+                album.get("version")));
+        Predicate predicate = specification == null ? null : specification.toPredicate(album, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(album.get("albumId")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // Plain JDBC in the caller's transaction: a JPQL bulk update would make Hibernate drop the whole Album
+    // second-level region and the query cache on every reservation, here only this album's entry goes
+    @Override
+    @Transactional
+    public int decrementStock(Long id, int quantity, LocalDateTime now) {
+        entityManager.flush(); // Pending changes reach the database before the update reads the row
+        int updated = jdbcTemplate.update(DECREMENT_STOCK, quantity, Timestamp.valueOf(now), id, quantity);
+        if (updated > 0) {
+            entityManagerFactory.getCache().evict(Album.class, id);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,74 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Genre;
+import org.springframework.data.jpa.domain.Specification;
+
+// Building blocks for album searches, each returns null when its filter is not set
+public final class AlbumSpecifications {
+
+    private AlbumSpecifications() {
+    }
+
+    public static Specification<Album> matching(AlbumSearchCriteria criteria, Long after) {
+        return Specification.where(idAfter(after))
+                .and(hasGenre(criteria.genre()))
+                .and(byArtist(criteria.artistId()))
+                .and(releasedBetween(criteria.minYear(), criteria.maxYear()))
+                .and(pricedBetween(criteria.minPrice(), criteria.maxPrice()))
+                .and(inStock(criteria.inStock()));
+    }
+
+    public static Specification<Album> idAfter(Long after) {
+        return after == null ? null : (root, query, cb) -> cb.greaterThan(root.get("albumId"), after);
+    }
+
+    public static Specification<Album> hasGenre(Genre genre) {
+        return genre == null ? null : (root, query, cb) -> cb.equal(root.get("genre"), genre);
+    }
+
+    // Compares the foreign key column, no join to artist is needed
+    public static Specification<Album> byArtist(Long artistId) {
+        return artistId == null ? null : (root, query, cb) -> cb.equal(root.get("artist").get("artistId"), artistId);
+    }
+
+    public static Specification<Album> releasedBetween(Integer minYear, Integer maxYear) {
+        if (minYear == null && maxYear == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minYear == null) {
+                return cb.lessThanOrEqualTo(root.get("releaseYear"), maxYear);
+            }
+            if (maxYear == null) {
+                return cb.greaterThanOrEqualTo(root.get("releaseYear"), minYear);
+            }
+            return cb.between(root.get("releaseYear"), minYear, maxYear);
+        };
+    }
+
+    public static Specification<Album> pricedBetween(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+            }
+            return cb.between(root.get("price"), minPrice, maxPrice);
+        };
+    }
+
+    public static Specification<Album> inStock(Boolean inStock) {
+        if (inStock == null) {
+            return null;
+        }
+        return (root, query, cb) -> inStock
+                ? cb.greaterThan(root.get("stock"), 0)
+                : cb.lessThanOrEqualTo(root.get("stock"), 0);
+    }
+}
@@ -0,0 +1,9 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.model.StockJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockJournalCheckpointRepository extends JpaRepository<StockJournalCheckpoint, String> {
+}
@@ -1,55 +1,356 @@
 package com.northcoders.recordapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.northcoders.recordapi.config.AlbumCacheProperties;
 import com.northcoders.recordapi.model.Album;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 @Service
-@Data
 public class AlbumCache {
 
-    private final HashMap<Long, AlbumCachedObject> albumCache = new HashMap<>();
-    private long timeToLive = 20000; // Default TTL is 20 seconds
-    public boolean isValid;
+    public static final String CACHE_NAME = "album";
+
+    // Caffeine gives us a concurrent, size-bounded map (W-TinyLFU eviction)
+    private final Cache<Long, AlbumCachedObject> albumCache;
+    private final long expireAfterWrite;
+    private final long expireAfterAccess;
+    private final long refreshAhead;
+    // One pending database load per album id, concurrent misses wait on the same future
+    private final ConcurrentHashMap<Long, Load> inFlight = new ConcurrentHashMap<>();
+    private final Executor refreshExecutor;
+    private final Timer loadTimer;
+    private final Timer readTimer;
+    private final Map<RemovalCause, Counter> removalCounters = new EnumMap<>(RemovalCause.class);
+
+    // A database load in progress, evicting the album while it runs keeps its (possibly stale) result out of the cache
+    private static class Load {
+        private final CompletableFuture<Optional<Album>> future = new CompletableFuture<>();
+        private volatile boolean stale;
+    }
 
     @Data
     public static class AlbumCachedObject {
-        private long lastAccessed = System.currentTimeMillis();
+        private volatile long lastAccessed = System.currentTimeMillis();
+        private long writtenAt = System.currentTimeMillis();
         private Album cachedAlbum;
 
+        // Response bodies built on first use, a changed album gets a new entry so these never go stale
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
+        private volatile byte[] json;
+
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
+        private volatile byte[] gzippedJson;
+
         public AlbumCachedObject(Album cachedAlbum) {
             this.cachedAlbum = cachedAlbum;
         }
+
+        // Two threads racing here both serialise the same album, either result is fine to keep
+        public byte[] json(ObjectMapper objectMapper) {
+            byte[] bytes = json;
+            if (bytes == null) {
+                try {
+                    bytes = objectMapper.writeValueAsBytes(cachedAlbum);
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+                json = bytes;
+            }
+            return bytes;
+        }
+
+        public byte[] gzippedJson(ObjectMapper objectMapper) {
+            byte[] bytes = gzippedJson;
+            if (bytes == null) {
+                byte[] plain = json(objectMapper);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + 32);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(plain);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                bytes = out.toByteArray();
+                gzippedJson = bytes;
+            }
+            return bytes;
+        }
+    }
+
+    public AlbumCache() {
+        this(new AlbumCacheProperties());
+    }
+
+    public AlbumCache(AlbumCacheProperties properties) {
+        this(properties, ForkJoinPool.commonPool(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public AlbumCache(AlbumCacheProperties properties,
+                      @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+                      MeterRegistry meterRegistry) {
+        this.expireAfterWrite = properties.getExpireAfterWrite().toMillis();
+        this.expireAfterAccess = properties.getExpireAfterAccess().toMillis();
+        this.refreshAhead = properties.getRefreshAhead().toMillis();
+        this.refreshExecutor = refreshExecutor;
+        this.albumCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new AlbumExpiry())
+                .scheduler(Scheduler.systemScheduler()) // Remove entries when they fall due, not on the next sweep
+                .removalListener((Long id, AlbumCachedObject value, RemovalCause cause) ->
+                        removalCounters.get(cause).increment())
+                .recordStats()
+                .build();
+
+        // cache.gets (hit/miss), cache.puts, cache.evictions and cache.size tagged cache=album
+        CaffeineCacheMetrics.monitor(meterRegistry, albumCache, CACHE_NAME);
+        for (RemovalCause cause : RemovalCause.values()) {
+            removalCounters.put(cause, Counter.builder("album.cache.removals")
+                    .description("Entries removed from the album cache, by cause")
+                    .tag("cause", cause.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.loadTimer = Timer.builder("album.cache.load")
+                .description("Time spent loading albums into the cache on a miss")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.readTimer = Timer.builder("album.cache.read")
+                .description("Single-album reads through the cache, hits and loads alike")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("album.cache.loads.inflight", inFlight, Map::size)
+                .description("Album loads currently running")
+                .register(meterRegistry);
+    }
+
+    // Per-entry deadline, tracked by Caffeine's timer wheel so only due entries are visited
+    private class AlbumExpiry implements Expiry<Long, AlbumCachedObject> {
+
+        @Override
+        public long expireAfterCreate(Long id, AlbumCachedObject value, long currentTime) {
+            return remainingNanos(value.getWrittenAt(), value.getLastAccessed(), System.currentTimeMillis());
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, AlbumCachedObject value, long currentTime, long currentDuration) {
+            return remainingNanos(value.getWrittenAt(), value.getLastAccessed(), System.currentTimeMillis());
+        }
+
+        @Override
+        public long expireAfterRead(Long id, AlbumCachedObject value, long currentTime, long currentDuration) {
+            long now = System.currentTimeMillis();
+            return remainingNanos(value.getWrittenAt(), now, now);
+        }
+    }
+
+    private long remainingNanos(long writtenAt, long lastAccessed, long now) {
+        long remaining = Long.MAX_VALUE;
+        if (expireAfterWrite > 0) {
+            remaining = Math.min(remaining, expireAfterWrite - (now - writtenAt));
+        }
+        if (expireAfterAccess > 0) {
+            remaining = Math.min(remaining, expireAfterAccess - (now - lastAccessed));
+        }
+        if (remaining == Long.MAX_VALUE) {
+            return Long.MAX_VALUE; // Neither limit is configured, keep until evicted by size
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
     }
 
-    public void removeExpiredEntries() {
-        long currentTime = System.currentTimeMillis();
-        long expirationThreshold = 20000; // 20 seconds (20,000 milliseconds)
-//        System.out.println("Removing expired entries...");
-        // Iterate over cache entries and remove expired ones
-        albumCache.entrySet().removeIf(entry ->
-                currentTime - entry.getValue().getLastAccessed() > expirationThreshold
-        );
-//        System.out.println("Cache cleanup completed.");
+    // Live, thread-safe view of the cache entries
+    public ConcurrentMap<Long, AlbumCachedObject> getAlbumCache() {
+        return albumCache.asMap();
     }
 
+    // Stores the album unless a newer version of it is already cached
     public void putAlbum(Long id, Album album) {
-        AlbumCachedObject cachedObject = new AlbumCachedObject(album);
-        cachedObject.setLastAccessed(System.currentTimeMillis());
-        albumCache.put(id, cachedObject);
+        albumCache.asMap().compute(id, (key, existing) ->
+                existing != null && isNewer(existing.getCachedAlbum(), album) ? existing : new AlbumCachedObject(album));
+    }
+
+    // Same as putAlbum, but skipped when the album was evicted after the load read it.
+    // Checked under the entry's lock, an evict either sees the new entry and removes it or marked the load first
+    private void putLoaded(Long id, Album album, Load load) {
+        albumCache.asMap().compute(id, (key, existing) -> {
+            if (load.stale || (existing != null && isNewer(existing.getCachedAlbum(), album))) {
+                return existing;
+            }
+            return new AlbumCachedObject(album);
+        });
+    }
+
+    // Returns the cached album, on a miss only one caller per id loads it and the rest wait for that result
+    public Optional<Album> getOrLoad(Long id, Function<Long, Optional<Album>> loader) {
+        return getOrLoadEntry(id, loader).map(AlbumCachedObject::getCachedAlbum);
+    }
+
+    // Same as getOrLoad, but hands back the entry so its serialised forms can be reused
+    public Optional<AlbumCachedObject> getOrLoadEntry(Long id, Function<Long, Optional<Album>> loader) {
+        return readTimer.record(() -> readEntry(id, loader));
+    }
+
+    private Optional<AlbumCachedObject> readEntry(Long id, Function<Long, Optional<Album>> loader) {
+        AlbumCachedObject cachedObject = albumCache.getIfPresent(id);
+        if (cachedObject != null) {
+            cachedObject.setLastAccessed(System.currentTimeMillis());
+            if (isDueForRefresh(cachedObject)) {
+                load(id, loader, true); // Reload in the background, this caller still gets the cached copy
+            }
+            return Optional.of(cachedObject);
+        }
+        try {
+            return load(id, loader, false).join().map(album -> {
+                AlbumCachedObject loaded = albumCache.asMap().get(id); // Not a lookup of its own, keeps hit/miss stats exact
+                // Already evicted again (or replaced by an older copy), serve an uncached entry for this call
+                return loaded != null && loaded.getCachedAlbum() == album ? loaded : new AlbumCachedObject(album);
+            });
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // Surface the loader's own exception to every waiting caller
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Optional<Album>> load(Long id, Function<Long, Optional<Album>> loader, boolean async) {
+        Load load = new Load();
+        Load existing = inFlight.putIfAbsent(id, load);
+        if (existing != null) {
+            return existing.future; // Someone is already loading this album
+        }
+        CompletableFuture<Optional<Album>> future = load.future;
+        Runnable task = () -> {
+            try {
+                Optional<Album> album = loadTimer.record(() -> loader.apply(id));
+                album.ifPresent(loaded -> putLoaded(id, loaded, load));
+                future.complete(album);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(id, load);
+            }
+        };
+        if (async) {
+            refreshExecutor.execute(task);
+        } else {
+            task.run(); // The first caller loads on its own thread, keeping its transaction
+        }
+        return future;
+    }
+
+    private boolean isDueForRefresh(AlbumCachedObject cachedObject) {
+        if (refreshAhead <= 0 || expireAfterWrite <= 0) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - cachedObject.getWrittenAt();
+        return age > expireAfterWrite - refreshAhead;
+    }
+
+    // Drops a single album, other entries are untouched. A load already running for it will not cache what it read
+    public void evict(Long id) {
+        Load load = inFlight.remove(id);
+        if (load != null) {
+            load.stale = true; // Before the invalidate, see putLoaded
+        }
+        albumCache.invalidate(id);
+    }
+
+    // Drops every album, used when this node may have missed invalidations
+    public void evictAll() {
+        inFlight.forEach((id, load) -> {
+            load.stale = true;
+            inFlight.remove(id, load);
+        });
+        albumCache.invalidateAll();
+    }
+
+    private static boolean isNewer(Album cached, Album candidate) {
+        if (cached.getVersion() == null || candidate.getVersion() == null) {
+            return false;
+        }
+        return cached.getVersion() > candidate.getVersion();
     }
 
     public Album getAlbum(Long id) {
-        AlbumCachedObject cachedObject = albumCache.get(id);
+        AlbumCachedObject cachedObject = albumCache.getIfPresent(id);
         if (cachedObject != null) {
             cachedObject.setLastAccessed(System.currentTimeMillis()); // Update access time when accessed
             return cachedObject.getCachedAlbum();
         }
         return null; // Return null if not found or expired
     }
-}
 
+    // Current number of entries (approximate under concurrent writes)
+    public long size() {
+        return albumCache.estimatedSize();
+    }
+
+    // Cheap snapshot of the counters, nothing is copied out of the cache itself
+    public Stats stats() {
+        CacheStats stats = albumCache.stats();
+        Map<String, Long> removals = new LinkedHashMap<>();
+        removalCounters.forEach((cause, counter) -> removals.put(cause.name().toLowerCase(), (long) counter.count()));
+        return new Stats(
+                albumCache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                loadTimer.count(),
+                loadTimer.mean(TimeUnit.MILLISECONDS),
+                inFlight.size(),
+                removals);
+    }
+
+    public record Stats(long size,
+                        long hitCount,
+                        long missCount,
+                        double hitRate,
+                        long loadCount,
+                        double averageLoadMillis,
+                        int loadsInFlight,
+                        Map<String, Long> removalsByCause) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.northcoders.recordapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.config.ChangeFeedProperties;
+import com.northcoders.recordapi.dto.AlbumChangeEvent;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.AlbumChange;
+import com.northcoders.recordapi.model.AlbumChangeType;
+import com.northcoders.recordapi.repository.AlbumChangeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Album change feed: outbox writes, paged reads and live SSE subscribers
+@Service
+public class AlbumChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumChangeFeed.class);
+    private static final int BACKLOG_PAGE_SIZE = 500;
+
+    @Autowired
+    private AlbumChangeRepository albumChangeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeFeedProperties properties;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // A client that stops reading blocks only its own cheap virtual thread, never the relay or the scheduler
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Joins the caller's transaction, so the outbox row commits or rolls back with the album change
+    public void record(Album album, AlbumChangeType type) {
+        String payload = null;
+        if (type != AlbumChangeType.DELETED) {
+            try {
+                payload = objectMapper.writeValueAsString(album);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        albumChangeRepository.save(new AlbumChange(album.getAlbumId(), type, album.getVersion(), payload));
+    }
+
+    public List<AlbumChangeEvent> getChangesSince(Long since, int limit) {
+        return albumChangeRepository.findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(since, Limit.of(limit))
+                .stream()
+                .map(AlbumChangeEvent::of)
+                .toList();
+    }
+
+    // Sends everything after 'since', then keeps the connection open for new changes
+    public SseEmitter subscribe(Long since) {
+        return subscribe(new SseEmitter(properties.getSseTimeout().toMillis()), since);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long since) {
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        senders.execute(subscriber::catchUp);
+        return emitter;
+    }
+
+    // Relays on other nodes broadcast only to their own subscribers, so every node also reads the committed feed
+    // from its slowest live subscriber onwards; events a subscriber already has are skipped by broadcast
+    @Scheduled(fixedDelayString = "${recordapi.changes.poll-interval:500ms}")
+    public void poll() {
+        OptionalLong oldest = subscribers.stream()
+                .filter(subscriber -> subscriber.live)
+                .mapToLong(subscriber -> subscriber.lastQueued)
+                .min();
+        if (oldest.isEmpty()) {
+            return;
+        }
+        long since = oldest.getAsLong();
+        List<AlbumChangeEvent> events;
+        do {
+            events = getChangesSince(since, BACKLOG_PAGE_SIZE);
+            if (!events.isEmpty()) {
+                broadcast(events);
+                since = events.get(events.size() - 1).sequence();
+            }
+        } while (events.size() == BACKLOG_PAGE_SIZE);
+    }
+
+    // Called with changes in feed order, by the local relay right after it added them and by poll
+    // Only queues, the writes to each client happen on that client's sender thread
+    public void broadcast(List<AlbumChangeEvent> events) {
+        subscribers.forEach(subscriber -> subscriber.offer(events));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<AlbumChangeEvent> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Not synchronized, the database read in goLive would pin a virtual thread to its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        // Set once the backlog is sent, broadcasts are ignored until then
+        private volatile boolean live;
+        // Highest sequence sent or queued, written under the lock once live, read without it by poll
+        private volatile long lastQueued;
+
+        Subscriber(SseEmitter emitter, long since) {
+            this.emitter = emitter;
+            this.lastQueued = since;
+        }
+
+        // Backlog pages are written straight from the feed on the sender thread, however long it takes the client
+        void catchUp() {
+            try {
+                while (!closed.get()) {
+                    List<AlbumChangeEvent> page = getChangesSince(lastQueued, BACKLOG_PAGE_SIZE);
+                    for (AlbumChangeEvent event : page) {
+                        send(event);
+                        lastQueued = event.sequence();
+                    }
+                    if (page.size() < BACKLOG_PAGE_SIZE && goLive()) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // Client went away
+            } catch (RuntimeException e) {
+                logger.warn("Could not read the change feed backlog for a subscriber", e);
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        // Reads what was relayed since the last page with broadcasts held off, so nothing falls in between
+        private boolean goLive() {
+            lock.lock();
+            try {
+                List<AlbumChangeEvent> tail = getChangesSince(lastQueued, BACKLOG_PAGE_SIZE);
+                if (tail.size() == BACKLOG_PAGE_SIZE) {
+                    return false; // Fell further behind while sending, keep paging
+                }
+                live = true;
+                enqueue(tail);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offer(List<AlbumChangeEvent> events) {
+            lock.lock();
+            try {
+                if (live) {
+                    enqueue(events);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Never blocks the caller, a full queue means the client cannot keep up and is dropped
+        private void enqueue(List<AlbumChangeEvent> events) {
+            for (AlbumChangeEvent event : events) {
+                if (closed.get()) {
+                    return;
+                }
+                if (event.sequence() <= lastQueued) {
+                    continue;
+                }
+                if (!queue.offer(event)) {
+                    logger.debug("Dropping slow change feed subscriber after {} queued changes", queue.size());
+                    close();
+                    emitter.complete(); // The client reconnects with Last-Event-ID and catches up from the feed
+                    return;
+                }
+                lastQueued = event.sequence();
+            }
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                AlbumChangeEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // Client went away
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event queued while we were finishing up found draining still set, pick it up now
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // The event id is the feed sequence, a reconnecting client resumes from Last-Event-ID
+        private void send(AlbumChangeEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.sequence()))
+                    .name("album-change")
+                    .data(event));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                queue.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.config.ChangeFeedProperties;
+import com.northcoders.recordapi.dto.AlbumChangeEvent;
+import com.northcoders.recordapi.model.AlbumChange;
+import com.northcoders.recordapi.repository.AlbumChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Moves committed outbox rows into the feed in batches and keeps the table compact
+@Component
+public class AlbumChangeRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumChangeRelay.class);
+
+    @Autowired
+    private AlbumChangeRepository albumChangeRepository;
+
+    @Autowired
+    private AlbumChangeFeed albumChangeFeed;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChangeFeedProperties properties;
+
+    // Feed sequences are handed out here, in the order rows become visible, never at insert time:
+    // an insert that commits late still lands after everything consumers have already read
+    @Scheduled(fixedDelayString = "${recordapi.changes.relay-interval:200ms}")
+    public void relay() {
+        List<AlbumChangeEvent> relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> {
+                List<AlbumChange> batch = albumChangeRepository.findByFeedSequenceIsNullOrderByIdAsc(
+                        Limit.of(properties.getRelayBatchSize()));
+                if (batch.isEmpty()) {
+                    return List.<AlbumChangeEvent>of();
+                }
+                Long max = albumChangeRepository.findMaxFeedSequence();
+                long next = max == null ? 0 : max;
+                for (AlbumChange change : batch) {
+                    change.setFeedSequence(++next); // Written back as one JDBC batch on commit
+                }
+                return batch.stream().map(AlbumChangeEvent::of).toList();
+            });
+            if (!relayed.isEmpty()) {
+                albumChangeFeed.broadcast(relayed);
+            }
+        } while (relayed.size() == properties.getRelayBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${recordapi.changes.compaction-interval:5m}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        int[] removed = transactionTemplate.execute(status -> new int[]{
+                albumChangeRepository.deleteSuperseded(now.minus(properties.getCompactAfter())),
+                albumChangeRepository.deleteTombstones(now.minus(properties.getDeleteRetention()))});
+        if (removed != null && removed[0] + removed[1] > 0) {
+            logger.info("Compacted {} superseded album changes and {} delete tombstones", removed[0], removed[1]);
+        }
+    }
+}
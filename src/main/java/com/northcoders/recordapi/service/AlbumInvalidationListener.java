@@ -0,0 +1,71 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.config.ReadYourWrites;
+import com.northcoders.recordapi.model.Album;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+// Applies evictions from other nodes to this node's AlbumCache, Hibernate second-level cache and search index
+@Component
+public class AlbumInvalidationListener implements CacheInvalidationBus.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumInvalidationListener.class);
+    private static final String NATURAL_KEY_REGION = "album-natural-key";
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private AlbumCache albumCache;
+
+    @Autowired
+    private AlbumSearchIndex albumSearchIndex;
+
+    @Autowired
+    private StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void subscribe() {
+        cacheInvalidationBus.subscribe(this);
+    }
+
+    @Override
+    public void evict(Set<Long> albumIds) {
+        Cache secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (Long albumId : albumIds) {
+            albumCache.evict(albumId);
+            secondLevelCache.evictEntityData(Album.class, albumId);
+        }
+        // Cached duplicate checks may now be wrong, the region is small and cheap to refill
+        secondLevelCache.evictQueryRegion(NATURAL_KEY_REGION);
+        // The primary already has the change, a replica might not yet
+        List<Album> current = ReadYourWrites.onPrimary(() -> albumSearchIndex.refresh(albumIds));
+        // Stock stream clients connected to this node see changes made on the others too
+        stockPriceBroadcaster.publish(current);
+        logger.debug("Evicted and re-indexed {} albums changed on another node", albumIds.size());
+    }
+
+    @Override
+    public void evictAll() {
+        albumCache.evictAll();
+        Cache secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        secondLevelCache.evictEntityData(Album.class);
+        secondLevelCache.evictQueryRegion(NATURAL_KEY_REGION);
+        logger.warn("Evicted every cached album after missing invalidation messages");
+        ReadYourWrites.onPrimary(() -> {
+            albumSearchIndex.rebuild();
+            return null;
+        });
+    }
+}
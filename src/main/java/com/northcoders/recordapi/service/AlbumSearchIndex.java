@@ -0,0 +1,248 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.dto.AlbumSuggestion;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over album titles and artist names, answers autocomplete without the database
+@Component
+public class AlbumSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumSearchIndex.class);
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    // Scores per query term, an album's score is the sum over all terms
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+    private static final int TITLE_PREFIX_BONUS = 2;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    // Sorted so a prefix lookup is a range scan over neighbouring terms
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+    // Writers take the lock, readers never do
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private record Document(Long albumId, String title, String artist, String normalisedTitle, Set<String> terms) {
+    }
+
+    // Also called when invalidations from other nodes may have been missed, so it drops albums that are gone
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Set<Long> stale = new HashSet<>(documents.keySet()); // Albums indexed later are never dropped here
+        long after = 0;
+        int indexed = 0;
+        List<Album> page;
+        do {
+            page = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(after, Limit.of(LOAD_PAGE_SIZE));
+            page.forEach(this::index);
+            page.forEach(album -> stale.remove(album.getAlbumId()));
+            indexed += page.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getAlbumId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        stale.forEach(this::remove);
+        logger.info("Album search index built with {} albums and {} terms", indexed, postings.size());
+    }
+
+    // Re-reads the given albums, indexing the ones that exist and removing the rest, returns what it read
+    public List<Album> refresh(Collection<Long> albumIds) {
+        List<Album> albums = albumRepository.findByAlbumIdIn(albumIds);
+        Set<Long> missing = new HashSet<>(albumIds);
+        for (Album album : albums) {
+            index(album);
+            missing.remove(album.getAlbumId());
+        }
+        missing.forEach(this::remove);
+        return albums;
+    }
+
+    public void index(Album album) {
+        String artist = album.getArtist() != null ? album.getArtist().getName() : "";
+        Set<String> terms = new LinkedHashSet<>(tokenize(album.getTitle()));
+        terms.addAll(tokenize(artist));
+        Document document = new Document(album.getAlbumId(), album.getTitle(), artist,
+                normalise(album.getTitle()), terms);
+
+        writeLock.lock();
+        try {
+            Document previous = documents.put(document.albumId(), document);
+            if (previous != null) {
+                unlink(previous);
+            }
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(document.albumId());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long albumId) {
+        writeLock.lock();
+        try {
+            Document previous = documents.remove(albumId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void unlink(Document document) {
+        for (String term : document.terms()) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(document.albumId());
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Every query term must match a title or artist term, the last one may be a partial word
+    public List<AlbumSuggestion> suggest(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (int i = 0; i < queryTerms.size(); i++) {
+            boolean last = i == queryTerms.size() - 1;
+            Map<Long, Integer> termScores = match(queryTerms.get(i), last);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        String normalisedQuery = normalise(query);
+        List<AlbumSuggestion> suggestions = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            Document document = documents.get(id);
+            if (document != null) {
+                int bonus = document.normalisedTitle().startsWith(normalisedQuery) ? TITLE_PREFIX_BONUS : 0;
+                suggestions.add(new AlbumSuggestion(id, document.title(), document.artist(), score + bonus));
+            }
+        });
+        suggestions.sort(Comparator.comparingInt(AlbumSuggestion::score).reversed()
+                .thenComparingInt(suggestion -> suggestion.title().length())
+                .thenComparing(AlbumSuggestion::albumId));
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    private Map<Long, Integer> match(String term, boolean allowPrefix) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Set<Long> exact = postings.get(term);
+        if (exact != null) {
+            exact.forEach(id -> scores.merge(id, EXACT_SCORE, Math::max));
+        }
+        if (allowPrefix) {
+            postings.subMap(term, false, term + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(ids -> ids.forEach(id -> scores.merge(id, PREFIX_SCORE, Math::max)));
+        }
+        if (scores.isEmpty() && term.length() >= 3) {
+            // Only terms sharing the first letter are compared, that keeps the scan small
+            int maxEdits = term.length() >= 7 ? 2 : 1;
+            NavigableMap<String, Set<Long>> candidates = postings.subMap(
+                    term.substring(0, 1), true, term.charAt(0) + String.valueOf(Character.MAX_VALUE), false);
+            candidates.forEach((candidate, ids) -> {
+                if (Math.abs(candidate.length() - term.length()) <= maxEdits
+                        && editDistance(term, candidate, maxEdits) <= maxEdits) {
+                    ids.forEach(id -> scores.merge(id, FUZZY_SCORE, Math::max));
+                }
+            });
+        }
+        return scores;
+    }
+
+    // Edit distance counting a swap of neighbouring letters as one edit, gives up early once above the limit
+    private static int editDistance(String a, String b, int limit) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return rowMin;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase();
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalise(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+}
@@ -1,23 +1,56 @@
 package com.northcoders.recordapi.service;
 
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.dto.AlbumRepresentation;
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.dto.AlbumSuggestion;
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.dto.BulkImportResult;
+import com.northcoders.recordapi.dto.StockReservation;
 import com.northcoders.recordapi.model.Album;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 public interface AlbumService {
 
-    // Get all albums
-    List<Album> getAllAlbums();
+    // Get a page of albums with an id greater than 'after'
+    List<AlbumSummary> getAlbumsAfter(Long after, int limit);
+
+    // Get a page of albums matching the filters with an id greater than 'after'
+    List<AlbumSummary> searchAlbums(AlbumSearchCriteria criteria, Long after, int limit);
+
+    // Ranked title and artist matches for autocomplete, answered from memory
+    List<AlbumSuggestion> suggestAlbums(String query, int limit);
+
+    // Write every album to the stream as newline-delimited JSON, returns the number written
+    long exportAlbums(OutputStream out) throws IOException;
 
     // Get album by ID
     Optional<Album> getAlbumById(Long id);
 
+    // Get album by ID together with its serialised response bodies, as held by the cache
+    Optional<AlbumRepresentation> getCachedAlbum(Long id);
+
     // Create a new album
     Album createAlbum(Album album);
 
+    // Create many albums at once, rows matching an existing title, artist and year update it instead.
+    // Rows are pulled in chunks as they are written, an exception from the iterator rolls back the whole import
+    BulkImportResult importAlbums(Iterator<AlbumImportRow> rows);
+
     // Update an album
     Album updateAlbum(Long id, Album album);
 
+    // Take stock from an album, fails without changing anything if not enough is left
+    StockReservation reserveStock(Long id, int quantity);
+
+    // Queue a stock change, applied to the database in the next write-behind flush
+    void adjustStock(Long id, int delta);
+
     // Delete an album by ID
     Optional<Album> deleteAlbum(Long id);
 }
@@ -1,18 +1,49 @@
 package com.northcoders.recordapi.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.config.ReadYourWrites;
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.dto.AlbumRepresentation;
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.dto.AlbumSuggestion;
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.dto.BulkImportResult;
+import com.northcoders.recordapi.dto.StockReservation;
 import com.northcoders.recordapi.exception.AlbumAlreadyExistsException;
+import com.northcoders.recordapi.exception.AlbumNotFoundException;
 import com.northcoders.recordapi.exception.ArtistNotFoundException;
+import com.northcoders.recordapi.exception.InsufficientStockException;
 import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.AlbumChangeType;
 import com.northcoders.recordapi.model.Artist;
 import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.AlbumSpecifications;
 import com.northcoders.recordapi.repository.ArtistRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +51,8 @@ import org.slf4j.LoggerFactory;
 public class AlbumServiceImpl implements AlbumService {
 
     private static final Logger logger = LoggerFactory.getLogger(AlbumServiceImpl.class);
+    private static final int EXPORT_FLUSH_ROWS = 500;
+    private static final int IMPORT_CHUNK_SIZE = 500;
 
     @Autowired
     private ArtistRepository artistRepository;
@@ -30,42 +63,95 @@ public class AlbumServiceImpl implements AlbumService {
     @Autowired
     AlbumCache albumCache;
 
+    @Autowired
+    AlbumSearchIndex albumSearchIndex;
+
+    @Autowired
+    StockAdjustmentBuffer stockAdjustmentBuffer;
+
+    @Autowired
+    CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    AlbumChangeFeed albumChangeFeed;
+
+    @Autowired
+    StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
-    public List<Album> getAllAlbums() {
-        return albumRepository.findAll();
+    @Transactional(readOnly = true) // Served by a replica when replication is enabled
+    public List<AlbumSummary> getAlbumsAfter(Long after, int limit) {
+        return albumRepository.findSummariesAfter(after, Limit.of(limit));
     }
 
     @Override
-    public Optional<Album> getAlbumById(Long id) {
-        // Check if the album is in the cache and if the cache is valid
-        if (albumCache.getAlbumCache().containsKey(id) && albumCache.isValid()) {
-            // Return the cached album
-            return Optional.of(albumCache.getAlbumCache().get(id).getCachedAlbum());
-        } else {
-            // If the album is not in the cache, fetch it from the database
-            Optional<Album> album = albumRepository.findById(id);
-            if (album.isPresent()) {
-                // Create a new AlbumCachedObject to put into the cache
-                AlbumCache.AlbumCachedObject albumCachedObject = new AlbumCache.AlbumCachedObject(album.get());
-                // Put the album into the cache
-                albumCache.getAlbumCache().put(id, albumCachedObject);
-                // Optionally, update the cache validity flag
-                albumCache.isValid = true;
+    @Transactional(readOnly = true)
+    public List<AlbumSummary> searchAlbums(AlbumSearchCriteria criteria, Long after, int limit) {
+        return albumRepository.findSummaries(AlbumSpecifications.matching(criteria, after), limit);
+    }
+
+    @Override
+    public List<AlbumSuggestion> suggestAlbums(String query, int limit) {
+        return albumSearchIndex.suggest(query, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAlbums(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Album> albums = albumRepository.streamAllBy();
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // The container owns the response stream
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("")); // Newlines are written explicitly below
+            Iterator<Album> iterator = albums.iterator();
+            while (iterator.hasNext()) {
+                Album album = iterator.next();
+                generator.writeObject(album);
+                generator.writeRaw('\n');
+                // Written rows are not needed any more, keep the persistence context from growing
+                entityManager.detach(album);
+                if (++count % EXPORT_FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
             }
-            // Return the album from the database (which was not in the cache)
-            return album;
         }
+        return count;
+    }
+
+    @Override
+    public Optional<Album> getAlbumById(Long id) {
+        // Served from the cache, concurrent misses for the same id share a single database load
+        return albumCache.getOrLoad(id, this::loadForCache); // Timed by the cache as album.cache.read
+    }
+
+    // Cache fills read the primary: a copy from a lagging replica would be cached long after the replica caught up
+    private Optional<Album> loadForCache(Long id) {
+        return ReadYourWrites.onPrimary(() -> albumRepository.findById(id));
+    }
+
+    @Override
+    public Optional<AlbumRepresentation> getCachedAlbum(Long id) {
+        return albumCache.getOrLoadEntry(id, this::loadForCache)
+                .map(entry -> new AlbumRepresentation(entry.getCachedAlbum(), entry.getCachedAlbum().getVersion(),
+                        () -> entry.json(objectMapper), () -> entry.gzippedJson(objectMapper)));
     }
 
     @Override
+    @Transactional
     public Album createAlbum(Album album) {
         // Ensure the artist exists before saving the album
         Artist artist = album.getArtist();
 
         // Check if the artist exists in the database
-        Optional<Artist> existingArtist = artistRepository.findById(artist.getId());
+        Optional<Artist> existingArtist = artistRepository.findById(artist.getArtistId());
         if (existingArtist.isEmpty()) {
-            throw new ArtistNotFoundException("Artist with id " + artist.getId() + " not found.");
+            throw new ArtistNotFoundException("Artist with id " + artist.getArtistId() + " not found.");
         }
 
         // Ensure that no duplicate album exists with the same title, artist, and release year
@@ -83,35 +169,152 @@ public class AlbumServiceImpl implements AlbumService {
             logger.error(errorMsg); // Log detailed conflict error
             throw new AlbumAlreadyExistsException(errorMsg); // Throw detailed exception
         } else {
-            // Save the new album in the repository
-            Album savedAlbum = albumRepository.save(album);
+            // Only the artist id comes from the request, the name is the stored one
+            album.setArtist(existingArtist.get());
+
+            // Save the new album, flushed so a concurrent duplicate fails here as a 409 instead of at commit
+            Album savedAlbum;
+            try {
+                savedAlbum = albumRepository.saveAndFlush(album);
+            } catch (DataIntegrityViolationException e) {
+                throw new AlbumAlreadyExistsException(String.format(
+                        "Album with title '%s', artist '%s', and release year '%d' already exists.",
+                        album.getTitle(), existingArtist.get().getName(), album.getReleaseYear()));
+            }
+            albumChangeFeed.record(savedAlbum, AlbumChangeType.CREATED);
 
-            // Add the newly created album to the cache
-            albumCache.putAlbum(savedAlbum.getId(), savedAlbum);
+            // Add the newly created album to the cache and the search index once the insert has committed
+            afterCommit(() -> {
+                albumCache.putAlbum(savedAlbum.getAlbumId(), savedAlbum);
+                albumSearchIndex.index(savedAlbum);
+            });
+            cacheInvalidationBus.publish(savedAlbum.getAlbumId()); // Other nodes may have cached "no such album"
 
             return savedAlbum;
         }
     }
 
     @Override
+    @Transactional
+    public BulkImportResult importAlbums(Iterator<AlbumImportRow> rows) {
+        Map<Long, Artist> artists = new HashMap<>();
+        int created = 0;
+        int updated = 0;
+        while (rows.hasNext()) {
+            List<AlbumImportRow> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            while (chunk.size() < IMPORT_CHUNK_SIZE && rows.hasNext()) {
+                chunk.add(rows.next());
+            }
+
+            // One query per chunk resolves the artists no earlier chunk referenced
+            Set<Long> artistIds = chunk.stream().map(AlbumImportRow::artistId)
+                    .filter(artistId -> !artists.containsKey(artistId))
+                    .collect(Collectors.toSet());
+            if (!artistIds.isEmpty()) {
+                artistRepository.findAllById(artistIds).forEach(artist -> artists.put(artist.getArtistId(), artist));
+                artistIds.removeAll(artists.keySet());
+                if (!artistIds.isEmpty()) {
+                    throw new ArtistNotFoundException("Artists with ids " + artistIds + " not found.");
+                }
+            }
+
+            // One query per chunk finds the albums that already exist
+            Map<AlbumKey, Album> albumsByKey = new HashMap<>();
+            albumRepository.findByArtist_ArtistIdInAndTitleIn(
+                            chunk.stream().map(AlbumImportRow::artistId).collect(Collectors.toSet()),
+                            chunk.stream().map(AlbumImportRow::title).collect(Collectors.toSet()))
+                    .forEach(album -> albumsByKey.put(AlbumKey.of(album), album));
+
+            List<Album> newAlbums = new ArrayList<>();
+            List<Album> changedAlbums = new ArrayList<>();
+            List<Album> repricedAlbums = new ArrayList<>();
+            for (AlbumImportRow row : chunk) {
+                AlbumKey key = new AlbumKey(row.title(), row.artistId(), row.releaseYear());
+                Album album = albumsByKey.get(key);
+                if (album == null) {
+                    album = new Album(row.title(), artists.get(row.artistId()), row.genre(),
+                            row.releaseYear(), row.stock(), row.price());
+                    albumsByKey.put(key, album); // A repeated row later in the import updates this one
+                    newAlbums.add(album);
+                    created++;
+                } else {
+                    if (album.getStock() != row.stock() || album.getPrice() != row.price()) {
+                        repricedAlbums.add(album);
+                    }
+                    album.setGenre(row.genre());
+                    album.setStock(row.stock());
+                    album.setPrice(row.price());
+                    changedAlbums.add(album);
+                    updated++;
+                }
+            }
+
+            // Inserts go out in JDBC batches, then the chunk is dropped from the persistence context
+            albumRepository.saveAll(newAlbums);
+            newAlbums.forEach(album -> albumChangeFeed.record(album, AlbumChangeType.CREATED));
+            entityManager.flush(); // Versions of the changed albums are bumped here
+            changedAlbums.forEach(album -> albumChangeFeed.record(album, AlbumChangeType.UPDATED));
+            entityManager.flush(); // Writes those outbox rows before clear() would drop them
+            stockPriceBroadcaster.publish(repricedAlbums);
+            entityManager.clear();
+            afterCommit(() -> {
+                changedAlbums.forEach(album -> albumCache.putAlbum(album.getAlbumId(), album));
+                newAlbums.forEach(albumSearchIndex::index);
+            });
+            // One registration per chunk, sent to the other nodes once the import commits
+            cacheInvalidationBus.publish(changedAlbums.stream().map(Album::getAlbumId).toList());
+        }
+        logger.info("Imported {} albums: {} created, {} updated", created + updated, created, updated);
+        return new BulkImportResult(created, updated);
+    }
+
+    // Natural key of an album, matches the table's unique constraint
+    private record AlbumKey(String title, Long artistId, int releaseYear) {
+        static AlbumKey of(Album album) {
+            return new AlbumKey(album.getTitle(), album.getArtist().getArtistId(), album.getReleaseYear());
+        }
+    }
+
+    @Override
+    @Transactional
     public Album updateAlbum(Long id, Album album) {
         Optional<Album> existingAlbumOpt = albumRepository.findById(id);
         if (existingAlbumOpt.isPresent()) {
             Album existingAlbum = existingAlbumOpt.get();
+            // Read before saving, the save copies the request onto this managed instance
+            int previousStock = existingAlbum.getStock();
+            double previousPrice = existingAlbum.getPrice();
 
             // Preserve createdAt and set updatedAt
             album.setCreatedAt(existingAlbum.getCreatedAt()); // Do not change the createdAt
             album.setUpdatedAt(LocalDateTime.now()); // Set updatedAt to the current timestamp
 
-            album.setId(id); // Ensure that the ID of the album is set correctly
+            if (album.getArtist() == null) {
+                album.setArtist(existingAlbum.getArtist()); // The artist is not part of the request body
+            } else {
+                // Only the artist id comes from the request, the name is the stored one
+                Long artistId = album.getArtist().getArtistId();
+                album.setArtist(artistRepository.findById(artistId)
+                        .orElseThrow(() -> new ArtistNotFoundException("Artist with id " + artistId + " not found.")));
+            }
+
+            album.setAlbumId(id); // Ensure that the ID of the album is set correctly
+            album.setVersion(existingAlbum.getVersion()); // Update the row we just read
 
             // Save the updated album
             Album updatedAlbum = albumRepository.save(album);
+            albumRepository.flush(); // Assigns the new version before it is cached and recorded
+            albumChangeFeed.record(updatedAlbum, AlbumChangeType.UPDATED);
+            if (updatedAlbum.getStock() != previousStock || updatedAlbum.getPrice() != previousPrice) {
+                stockPriceBroadcaster.publish(updatedAlbum);
+            }
 
-            // Invalidate and update the cache
-            albumCache.removeExpiredEntries(); // Clean up expired entries before updating
-            albumCache.setValid(false); // Invalidate the cache
-            albumCache.putAlbum(updatedAlbum.getId(), updatedAlbum); // Update cache with the new version
+            // Replace only this album's entry, the new version wins over any older copy
+            afterCommit(() -> {
+                albumCache.putAlbum(updatedAlbum.getAlbumId(), updatedAlbum);
+                albumSearchIndex.index(updatedAlbum);
+            });
+            cacheInvalidationBus.publish(id);
 
             return updatedAlbum;
         } else {
@@ -121,25 +324,69 @@ public class AlbumServiceImpl implements AlbumService {
 
 
     @Override
+    @Transactional
+    public StockReservation reserveStock(Long id, int quantity) {
+        // One conditional UPDATE, the check and the decrement happen atomically on that row only
+        int updated = albumRepository.decrementStock(id, quantity, LocalDateTime.now());
+        Album album = albumRepository.findById(id)
+                .orElseThrow(() -> new AlbumNotFoundException("Album not found with ID: " + id));
+        if (updated == 0) {
+            throw new InsufficientStockException(String.format("Cannot reserve %d of album %d, only %d left in stock.",
+                    quantity, id, album.getStock()));
+        }
+        // The update went around the persistence context, a copy loaded earlier in this transaction would be stale
+        entityManager.refresh(album);
+        // The re-read row carries the bumped version, so it replaces any cached copy
+        afterCommit(() -> albumCache.putAlbum(id, album));
+        albumChangeFeed.record(album, AlbumChangeType.UPDATED);
+        stockPriceBroadcaster.publish(album);
+        cacheInvalidationBus.publish(id);
+        return new StockReservation(id, quantity, album.getStock());
+    }
+
+    @Override
+    public void adjustStock(Long id, int delta) {
+        // Existence check is usually a cache hit, the write itself never touches the database here
+        Album album = getAlbumById(id).orElseThrow(() -> new AlbumNotFoundException("Album not found with ID: " + id));
+        // Refused up front while the client can still be told, a delta that only fails at flush time is rejected there
+        long available = album.getStock() + stockAdjustmentBuffer.pendingDelta(id);
+        if (delta < 0 && available + delta < 0) {
+            throw new InsufficientStockException(String.format("Cannot take %d of album %d, only %d left in stock.",
+                    -delta, id, available));
+        }
+        stockAdjustmentBuffer.adjust(id, delta);
+    }
+
+    @Override
+    @Transactional
     public Optional<Album> deleteAlbum(Long id) {
         Optional<Album> album = albumRepository.findById(id);
         if (album.isPresent()) {
-            // Remove the album from the cache
-            albumCache.getAlbumCache().remove(id);
             albumRepository.deleteById(id);
+            // Remove the album from the cache and the search index, a read before the commit would re-cache it
+            afterCommit(() -> {
+                albumCache.evict(id);
+                albumSearchIndex.remove(id);
+            });
+            albumChangeFeed.record(album.get(), AlbumChangeType.DELETED);
+            cacheInvalidationBus.publish(id);
             return album;
         }
         return Optional.empty();
     }
 
-    // Scheduled task to prune expired cache entries every 20 seconds
-    @Scheduled(fixedRate = 20000)
-    public void cleanUpCache() {
-//        System.out.println("Running cache cleanup task...");
-        int initialSize = albumCache.getAlbumCache().size();
-        albumCache.removeExpiredEntries(); // Perform cache cleanup
-        int finalSize = albumCache.getAlbumCache().size();
-//        System.out.println("Cache cleanup completed. Entries removed: " + (initialSize - finalSize));
+    // Cache and search index changes wait for the commit, a rolled back write must leave no trace in either
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
 
@@ -0,0 +1,26 @@
+package com.northcoders.recordapi.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+// Tells the other API nodes which albums changed, so they drop their local cached copies
+public interface CacheInvalidationBus {
+
+    // Sent after the current transaction commits, or straight away outside one
+    void publish(Collection<Long> albumIds);
+
+    default void publish(Long albumId) {
+        publish(Set.of(albumId));
+    }
+
+    // Receives evictions published by other nodes, never this node's own
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void evict(Set<Long> albumIds);
+
+        // Messages may have been missed (e.g. the connection dropped), nothing cached can be trusted
+        void evictAll();
+    }
+}
@@ -0,0 +1,94 @@
+package com.northcoders.recordapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Queues published ids and sends them in periodic batches, a burst of writes to one album is one message
+public abstract class CoalescingInvalidationBus implements CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingInvalidationBus.class);
+
+    // Tags our own messages so we can ignore them when the transport echoes them back
+    protected final String nodeId = UUID.randomUUID().toString();
+    private final int maxIdsPerMessage;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    protected CoalescingInvalidationBus(int maxIdsPerMessage) {
+        this.maxIdsPerMessage = maxIdsPerMessage;
+    }
+
+    @Override
+    public void publish(Collection<Long> albumIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A rolled back change must not evict anything, and other nodes must not reload the old row
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.addAll(albumIds);
+                }
+            });
+        } else {
+            pending.addAll(albumIds);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${recordapi.cache.invalidation.flush-interval:50ms}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>();
+        for (Iterator<Long> iterator = pending.iterator(); iterator.hasNext(); ) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        for (int start = 0; start < batch.size(); start += maxIdsPerMessage) {
+            List<Long> chunk = batch.subList(start, Math.min(start + maxIdsPerMessage, batch.size()));
+            try {
+                send(nodeId, chunk);
+            } catch (RuntimeException e) {
+                // The transport is likely down for the rest too, everything unsent goes back for the next flush
+                List<Long> unsent = batch.subList(start, batch.size());
+                pending.addAll(unsent);
+                logger.error("Could not send cache invalidation for {} albums, retrying on the next flush",
+                        unsent.size(), e);
+                return;
+            }
+        }
+    }
+
+    // Hands one message to the transport
+    protected abstract void send(String origin, List<Long> albumIds);
+
+    // Called by the transport for every message it receives
+    protected void receive(String origin, Collection<Long> albumIds) {
+        if (nodeId.equals(origin)) {
+            return; // Our own cache already holds the new state
+        }
+        Set<Long> ids = new LinkedHashSet<>(albumIds);
+        listeners.forEach(listener -> listener.evict(ids));
+    }
+
+    protected void receiveReset() {
+        listeners.forEach(Listener::evictAll);
+    }
+}
@@ -0,0 +1,25 @@
+package com.northcoders.recordapi.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-process transport: buses that joined each other behave like nodes sharing a network
+public class LoopbackInvalidationBus extends CoalescingInvalidationBus {
+
+    private volatile List<LoopbackInvalidationBus> network = new CopyOnWriteArrayList<>(List.of(this));
+
+    public LoopbackInvalidationBus(int maxIdsPerMessage) {
+        super(maxIdsPerMessage);
+    }
+
+    // Connects this bus to the other one and every bus it is already connected to
+    public void join(LoopbackInvalidationBus other) {
+        other.network.add(this);
+        network = other.network;
+    }
+
+    @Override
+    protected void send(String origin, List<Long> albumIds) {
+        network.forEach(node -> node.receive(origin, albumIds));
+    }
+}
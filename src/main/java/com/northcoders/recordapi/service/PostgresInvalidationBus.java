@@ -0,0 +1,133 @@
+package com.northcoders.recordapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Postgres LISTEN/NOTIFY transport, messages are "<origin>:<id>,<id>,..."
+public class PostgresInvalidationBus extends CoalescingInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                   String channel, int maxIdsPerMessage) {
+        super(maxIdsPerMessage);
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "album-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.join(POLL_MILLIS * 2L);
+    }
+
+    @Override
+    protected void send(String origin, List<Long> albumIds) {
+        String payload = origin + ":" + albumIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.query("select pg_notify(?, ?)", resultSet -> null, channel, payload);
+    }
+
+    // Own connection outside the pool, it stays checked out for as long as the node runs
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    receiveReset(); // Anything sent while we were disconnected is lost
+                }
+                connectedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handleSafely(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Whatever went wrong, this thread is the node's only source of invalidations and must keep going
+                logger.warn("Lost the cache invalidation connection, reconnecting", e);
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    // One bad message or failing listener must not stop the ones after it
+    private void handleSafely(String payload) {
+        try {
+            handle(payload);
+        } catch (RuntimeException e) {
+            logger.error("Could not apply cache invalidation message {}, evicting everything instead", payload, e);
+            try {
+                receiveReset(); // We cannot tell which albums it was about
+            } catch (RuntimeException resetFailure) {
+                logger.error("Could not evict every cached album either", resetFailure);
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0) {
+            logger.warn("Ignoring malformed cache invalidation message: {}", payload);
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : payload.substring(separator + 1).split(",")) {
+            if (!id.isEmpty()) {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        receive(payload.substring(0, separator), ids);
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.config.StockBufferProperties;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.AlbumChangeType;
+import com.northcoders.recordapi.model.RejectedStockAdjustment;
+import com.northcoders.recordapi.model.StockJournalCheckpoint;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.RejectedStockAdjustmentRepository;
+import com.northcoders.recordapi.repository.StockJournalCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Write-behind stock changes: deltas are journaled and summed in memory, then applied in one batch per flush
+@Service
+public class StockAdjustmentBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockAdjustmentBuffer.class);
+    // Refuses a delta that would take the stock below zero, the row count comes back 0 instead
+    private static final String UPDATE_STOCK =
+            "update album set stock = stock + ?, version = version + 1, updated_at = ? where album_id = ? and stock + ? >= 0";
+
+    @Autowired
+    private StockBufferProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private RejectedStockAdjustmentRepository rejectedAdjustmentRepository;
+
+    @Autowired
+    private AlbumCache albumCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Autowired
+    private AlbumChangeFeed albumChangeFeed;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor flushExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // LongAdder spreads contention on a hot album across cells instead of one CAS target
+    private volatile ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // Adjusters share the read lock, a flush holds the write lock only to swap the map and rotate the journal
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private StockJournal journal;
+    private Counter rejected;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (properties.getCheckpointName() == null || properties.getCheckpointName().isBlank()) {
+            // A shared or changing name would let one node skip or replay another node's journal
+            throw new IllegalStateException("recordapi.stock.buffer.checkpoint-name must be set to a name unique to this node");
+        }
+        rejected = Counter.builder("stock.adjustments.rejected")
+                .description("Buffered stock deltas refused because they would take the stock below zero, each recorded once")
+                .register(meterRegistry);
+        journal = new StockJournal(properties.getJournalDirectory(), properties.isFsync());
+        long checkpoint = checkpointRepository.findById(properties.getCheckpointName())
+                .map(StockJournalCheckpoint::getSegment)
+                .orElse(0L);
+        journal.deleteUpTo(checkpoint); // Applied before the last shutdown or crash
+        // Anything after the checkpoint never reached the database, it goes out with the next flush
+        Map<Long, Long> unflushed = journal.replay(checkpoint);
+        unflushed.forEach((albumId, delta) -> pending.computeIfAbsent(albumId, id -> new LongAdder()).add(delta));
+        if (!unflushed.isEmpty()) {
+            logger.warn("Replayed unflushed stock adjustments for {} albums from {}",
+                    unflushed.size(), properties.getJournalDirectory());
+        }
+    }
+
+    // Durable in the journal once this returns, visible in the database after the next flush
+    public void adjust(Long albumId, int delta) {
+        swapLock.readLock().lock();
+        try {
+            journal.append(albumId, delta);
+            pending.computeIfAbsent(albumId, id -> new LongAdder()).add(delta);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal stock adjustment for album " + albumId, e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (pendingCount.incrementAndGet() == properties.getFlushThreshold()) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    // Net delta not yet written to the database
+    public long pendingDelta(Long albumId) {
+        LongAdder adder = pending.get(albumId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${recordapi.stock.buffer.flush-interval:1s}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // A flush is already running, whatever arrived since goes out with the next one
+        }
+        try {
+            Map<Long, LongAdder> drained;
+            long segment;
+            swapLock.writeLock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                segment = journal.rotate();
+                drained = pending;
+                pending = new ConcurrentHashMap<>();
+                pendingCount.set(0);
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            apply(drained, segment);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Stock flush failed, adjustments stay journaled and are retried on the next flush", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void apply(Map<Long, LongAdder> drained, long segment) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> updates = new ArrayList<>(drained.size());
+        drained.forEach((albumId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                updates.add(new Object[]{delta, timestamp, albumId, delta});
+            }
+        });
+        List<RejectedStockAdjustment> refused = new ArrayList<>();
+        List<Album> changed = new ArrayList<>();
+        try {
+            // The checkpoint commits with the updates, a crash either side of the commit never applies a delta twice
+            transactionTemplate.executeWithoutResult(status -> {
+                refused.clear(); // Only what the committed attempt did counts
+                changed.clear();
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_STOCK, updates);
+                List<Long> applied = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        applied.add((Long) updates.get(i)[2]);
+                    } else {
+                        Long albumId = (Long) updates.get(i)[2];
+                        long delta = (Long) updates.get(i)[0];
+                        if (albumRepository.existsById(albumId)) {
+                            refused.add(new RejectedStockAdjustment(albumId, delta, properties.getCheckpointName(), now));
+                        } else {
+                            logger.warn("Dropped stock delta {} for album {}, it no longer exists", delta, albumId);
+                        }
+                    }
+                }
+                // Recorded once and dropped, never merged with later deltas for the same album
+                rejectedAdjustmentRepository.saveAll(refused);
+                // Re-read past the second-level cache, the outbox rows carry the new stock and version
+                applied.forEach(albumId -> entityManagerFactory.getCache().evict(Album.class, albumId));
+                changed.addAll(albumRepository.findAllById(applied));
+                changed.forEach(album -> albumChangeFeed.record(album, AlbumChangeType.UPDATED));
+                checkpointRepository.save(new StockJournalCheckpoint(properties.getCheckpointName(), segment, now));
+            });
+        } catch (RuntimeException e) {
+            restore(drained); // Rolled back, nothing was applied or recorded
+            throw e;
+        }
+        if (!refused.isEmpty()) {
+            rejected.increment(refused.size());
+            logger.warn("Rejected {} stock deltas that would take stock below zero: {}", refused.size(),
+                    refused.stream().map(r -> r.getAlbumId() + "=" + r.getDelta()).toList());
+        }
+        // Stock changed behind JPA's back, drop the cached copies so the next read sees it
+        drained.keySet().forEach(albumId -> {
+            albumCache.evict(albumId);
+            entityManagerFactory.getCache().evict(Album.class, albumId);
+        });
+        cacheInvalidationBus.publish(drained.keySet());
+        stockPriceBroadcaster.publish(changed);
+        journal.deleteUpTo(segment);
+        logger.debug("Flushed stock adjustments for {} albums (journal segment {})", updates.size(), segment);
+    }
+
+    // Puts a failed batch back, its journal segments are kept until a later flush succeeds
+    private void restore(Map<Long, LongAdder> drained) {
+        swapLock.readLock().lock();
+        try {
+            drained.forEach((albumId, adder) -> pending.computeIfAbsent(albumId, id -> new LongAdder()).add(adder.sum()));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        journal.close();
+    }
+}
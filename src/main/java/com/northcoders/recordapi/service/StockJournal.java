@@ -0,0 +1,110 @@
+package com.northcoders.recordapi.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Append-only log of stock deltas, split into numbered segment files so applied ones can be deleted
+class StockJournal implements Closeable {
+
+    private static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+
+    StockJournal(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.fsync = fsync;
+        // Older segments stay on disk until replay() has read them
+        List<Long> existing = segments();
+        this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        this.channel = open(segment);
+    }
+
+    // Safe to call from several threads, each record goes out in a single write
+    void append(long albumId, int delta) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).putLong(albumId).putInt(delta).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    // Closes the current segment and starts the next one, returns the number of the closed segment
+    long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        long closed = segment;
+        segment++;
+        channel = open(segment);
+        return closed;
+    }
+
+    // Net delta per album over every segment after the given one, a torn record at the end is skipped
+    Map<Long, Long> replay(long afterSegment) throws IOException {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (long number : segments()) {
+            if (number <= afterSegment) {
+                continue;
+            }
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path(number)));
+            while (records.remaining() >= RECORD_BYTES) {
+                deltas.merge(records.getLong(), (long) records.getInt(), Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    // Drops segments whose deltas are already in the database
+    void deleteUpTo(long lastApplied) throws IOException {
+        for (long number : segments()) {
+            if (number <= lastApplied && number != segment) {
+                Files.deleteIfExists(path(number));
+            }
+        }
+    }
+
+    long currentSegment() {
+        return segment;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(path(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%020d%s", number, SUFFIX));
+    }
+}
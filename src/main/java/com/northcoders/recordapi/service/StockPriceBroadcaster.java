@@ -0,0 +1,232 @@
+package com.northcoders.recordapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.northcoders.recordapi.config.StockStreamProperties;
+import com.northcoders.recordapi.dto.StockPriceEvent;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Genre;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pushes stock and price changes to SSE subscribers of an album id or genre
+// Fed by this node's writes and, through AlbumInvalidationListener, by writes on the other nodes
+@Service
+public class StockPriceBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockPriceBroadcaster.class);
+    private static final String EVENT_NAME = "stock";
+    private static final int LAST_PUBLISHED_ALBUMS = 10_000;
+
+    private final ObjectMapper objectMapper;
+    private final StockStreamProperties properties;
+    // Only subscriptions interested in an album or its genre are visited
+    private final ConcurrentHashMap<Long, Set<Subscription>> byAlbum = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Genre, Set<Subscription>> byGenre = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Last event per album, an older version or a re-read with the same stock and price is not sent again
+    private final Cache<Long, StockPriceEvent> lastPublished = Caffeine.newBuilder().maximumSize(LAST_PUBLISHED_ALBUMS).build();
+    // A client that stops reading blocks only its own cheap virtual thread
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter droppedCounter;
+
+    public StockPriceBroadcaster(ObjectMapper objectMapper, StockStreamProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.droppedCounter = Counter.builder("album.stock.stream.dropped")
+                .description("Stock stream clients disconnected for falling behind")
+                .register(meterRegistry);
+        Gauge.builder("album.stock.stream.subscribers", subscriptions, Set::size)
+                .description("Open stock stream connections")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Set<Long> albumIds, Set<Genre> genres, List<StockPriceEvent> initial) {
+        return subscribe(new SseEmitter(properties.getTimeout().toMillis()), albumIds, genres, initial);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Set<Long> albumIds, Set<Genre> genres, List<StockPriceEvent> initial) {
+        Subscription subscription = new Subscription(emitter, albumIds, genres);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        subscriptions.add(subscription);
+        // compute, not computeIfAbsent + add, so a concurrent close cannot drop the set we are adding to
+        albumIds.forEach(id -> byAlbum.compute(id, (key, set) -> add(set, subscription)));
+        genres.forEach(genre -> byGenre.compute(genre, (key, set) -> add(set, subscription)));
+        // Queued after registering, so no change is missed, at worst one arrives twice
+        initial.forEach(event -> subscription.enqueue(frame(event)));
+        return emitter;
+    }
+
+    private static Set<Subscription> add(Set<Subscription> set, Subscription subscription) {
+        Set<Subscription> target = set != null ? set : ConcurrentHashMap.newKeySet();
+        target.add(subscription);
+        return target;
+    }
+
+    // Sent once the current transaction commits, or straight away outside one
+    public void publish(Collection<Album> albums) {
+        List<StockPriceEvent> events = albums.stream().map(StockPriceEvent::of).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(StockPriceBroadcaster.this::fanOut);
+                }
+            });
+        } else {
+            events.forEach(this::fanOut);
+        }
+    }
+
+    public void publish(Album album) {
+        publish(List.of(album));
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void fanOut(StockPriceEvent event) {
+        if (!isChange(event)) {
+            return;
+        }
+        Set<Subscription> targets = new HashSet<>(byAlbum.getOrDefault(event.albumId(), Set.of()));
+        targets.addAll(byGenre.getOrDefault(event.genre(), Set.of()));
+        if (targets.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> frame = frame(event); // Serialised once, the same bytes go to every subscriber
+        targets.forEach(subscription -> subscription.enqueue(frame));
+    }
+
+    // Recorded even without subscribers, so a later event is compared with the real previous state
+    private boolean isChange(StockPriceEvent event) {
+        boolean[] changed = {false};
+        lastPublished.asMap().compute(event.albumId(), (albumId, previous) -> {
+            if (previous != null && (isOlder(event, previous)
+                    || (previous.stock() == event.stock() && previous.price() == event.price()))) {
+                return previous;
+            }
+            changed[0] = true;
+            return event;
+        });
+        return changed[0];
+    }
+
+    private static boolean isOlder(StockPriceEvent event, StockPriceEvent previous) {
+        return event.version() != null && previous.version() != null && event.version() < previous.version();
+    }
+
+    private Set<DataWithMediaType> frame(StockPriceEvent event) {
+        try {
+            String json = objectMapper.writeValueAsString(event);
+            // Plain text, the JSON is written as is instead of through Jackson per subscriber
+            return SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(event.albumId() + "-" + event.version())
+                    .data(json, MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final Set<Long> albumIds;
+        private final Set<Genre> genres;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscription(SseEmitter emitter, Set<Long> albumIds, Set<Genre> genres) {
+            this.emitter = emitter;
+            this.albumIds = albumIds;
+            this.genres = genres;
+        }
+
+        // Never blocks the publisher, a full queue means the client cannot keep up and is dropped
+        void enqueue(Set<DataWithMediaType> frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                logger.debug("Dropping slow stock stream client after {} queued events", queue.size());
+                droppedCounter.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> frame;
+                while (!closed.get() && (frame = queue.poll()) != null) {
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // Client went away
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event queued while we were finishing up found draining still set, pick it up now
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.remove(this);
+            albumIds.forEach(id -> byAlbum.computeIfPresent(id, (key, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            }));
+            genres.forEach(genre -> byGenre.computeIfPresent(genre, (key, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            }));
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Run once against a Postgres database whose album ids came from the old IDENTITY column, safe to run again.
+-- ddl-auto=update would create album_seq starting at 1, and new albums would then collide with existing ids.
+CREATE SEQUENCE IF NOT EXISTS album_seq INCREMENT BY 50;
+ALTER SEQUENCE album_seq INCREMENT BY 50; -- Must match allocationSize on Album.albumId
+-- Past the highest id in use, never moved backwards so ids another node has already reserved stay unique
+SELECT setval('album_seq', GREATEST((SELECT COALESCE(MAX(album_id), 0) FROM album) + 1,
+                                    (SELECT last_value FROM album_seq)));
@@ -0,0 +1,7 @@
+-- Run once against a Postgres database created before albums were versioned, safe to run again.
+-- ddl-auto=update adds the version column as nullable and never backfills it, so older albums keep NULL:
+-- JPA treats them as unversioned and the stock updates' "version = version + 1" leaves them NULL.
+ALTER TABLE album ADD COLUMN IF NOT EXISTS version bigint;
+UPDATE album SET version = 0 WHERE version IS NULL;
+ALTER TABLE album ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE album ALTER COLUMN version SET NOT NULL;
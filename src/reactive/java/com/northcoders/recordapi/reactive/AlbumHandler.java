@@ -0,0 +1,145 @@
+package com.northcoders.recordapi.reactive;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Non-blocking handlers serving the same /api/v1/album contract as AlbumController
+@Component
+@Profile("reactive")
+public class AlbumHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ReactiveAlbumRepository albumRepository;
+    private final ReactiveArtistRepository artistRepository;
+    private final ReactiveAlbumCache albumCache;
+    private final Validator validator;
+
+    public AlbumHandler(ReactiveAlbumRepository albumRepository,
+                        ReactiveArtistRepository artistRepository,
+                        ReactiveAlbumCache albumCache,
+                        Validator validator) {
+        this.albumRepository = albumRepository;
+        this.artistRepository = artistRepository;
+        this.albumCache = albumCache;
+        this.validator = validator;
+    }
+
+    // Get albums one page at a time, the Link header points at the next page
+    public Mono<ServerResponse> list(ServerRequest request) {
+        long after = request.queryParam("after").map(Long::valueOf).orElse(0L);
+        int limit = request.queryParam("limit").map(Integer::valueOf).orElse(DEFAULT_PAGE_SIZE);
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Ask for one extra row so we know whether another page exists
+        return albumRepository.findPage(after, pageSize + 1).collectList().flatMap(albums -> {
+            if (albums.size() <= pageSize) {
+                return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(albums);
+            }
+            List<AlbumRow> page = albums.subList(0, pageSize);
+            String next = request.uriBuilder()
+                    .replaceQueryParam("after", page.get(pageSize - 1).getAlbumId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build()
+                    .toString();
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .bodyValue(page);
+        });
+    }
+
+    // Stream the whole catalogue as NDJSON, rows are only read as fast as the client consumes them
+    public Mono<ServerResponse> export(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(albumRepository.findAllByOrderByAlbumIdAsc(), AlbumRow.class);
+    }
+
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return albumCache.getOrLoad(id, albumRepository::findById)
+                .flatMap(album -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(album))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return request.bodyToMono(AlbumRow.class).flatMap(album -> {
+            Map<String, String> errors = validate(album);
+            if (!errors.isEmpty()) {
+                return ServerResponse.badRequest().bodyValue(errors);
+            }
+            album.setAlbumId(null);
+            album.setVersion(null);
+            return artistRepository.existsById(album.getArtistId()).flatMap(artistExists -> {
+                if (!artistExists) {
+                    return ServerResponse.status(HttpStatus.NOT_FOUND)
+                            .bodyValue("Artist with id " + album.getArtistId() + " not found.");
+                }
+                return albumRepository.findByTitleAndArtistIdAndReleaseYear(
+                                album.getTitle(), album.getArtistId(), album.getReleaseYear())
+                        .flatMap(existing -> ServerResponse.status(HttpStatus.CONFLICT).bodyValue(Map.of(
+                                "error", "Conflict",
+                                "message", String.format("Album with title '%s', artist '%d', and release year '%d' already exists.",
+                                        album.getTitle(), album.getArtistId(), album.getReleaseYear()))))
+                        .switchIfEmpty(Mono.defer(() -> albumRepository.save(album).flatMap(saved -> {
+                            albumCache.putAlbum(saved);
+                            return ServerResponse.status(HttpStatus.CREATED).bodyValue(saved);
+                        })));
+            });
+        });
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return request.bodyToMono(AlbumRow.class).flatMap(changes -> albumRepository.findById(id)
+                .flatMap(existing -> {
+                    existing.setTitle(changes.getTitle());
+                    existing.setGenre(changes.getGenre());
+                    existing.setReleaseYear(changes.getReleaseYear());
+                    existing.setStock(changes.getStock());
+                    existing.setPrice(changes.getPrice());
+                    if (changes.getArtistId() != null) {
+                        existing.setArtistId(changes.getArtistId());
+                    }
+                    Map<String, String> errors = validate(existing);
+                    if (!errors.isEmpty()) {
+                        return ServerResponse.badRequest().bodyValue(errors);
+                    }
+                    return albumRepository.save(existing).flatMap(updated -> {
+                        albumCache.putAlbum(updated);
+                        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(updated);
+                    });
+                })
+                .switchIfEmpty(ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return albumRepository.findById(id)
+                .flatMap(album -> albumRepository.delete(album)
+                        .then(Mono.fromRunnable(() -> albumCache.evict(id)))
+                        .then(ServerResponse.noContent().build()))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private Map<String, String> validate(AlbumRow album) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (ConstraintViolation<AlbumRow> violation : validator.validate(album)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+}
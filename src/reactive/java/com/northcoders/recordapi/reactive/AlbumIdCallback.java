@@ -0,0 +1,43 @@
+package com.northcoders.recordapi.reactive;
+
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// New albums take their id from the same sequence as the JPA side, and get their timestamps
+@Component
+public class AlbumIdCallback implements BeforeConvertCallback<AlbumRow> {
+
+    private final DatabaseClient databaseClient;
+    private final String nextIdSql;
+
+    public AlbumIdCallback(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+        String database = databaseClient.getConnectionFactory().getMetadata().getName();
+        this.nextIdSql = database.toLowerCase().contains("h2")
+                ? "SELECT NEXT VALUE FOR album_seq"
+                : "SELECT nextval('album_seq')";
+    }
+
+    @Override
+    public Publisher<AlbumRow> onBeforeConvert(AlbumRow album, SqlIdentifier table) {
+        LocalDateTime now = LocalDateTime.now();
+        album.setUpdatedAt(now);
+        if (album.getAlbumId() != null) {
+            return Mono.just(album);
+        }
+        album.setCreatedAt(now);
+        return databaseClient.sql(nextIdSql)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(id -> {
+                    album.setAlbumId(id);
+                    return album;
+                });
+    }
+}
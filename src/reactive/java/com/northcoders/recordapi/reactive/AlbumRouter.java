@@ -0,0 +1,27 @@
+package com.northcoders.recordapi.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+@Profile("reactive")
+public class AlbumRouter {
+
+    // Declared in match order, /export has to come before /{id}
+    @Bean
+    public RouterFunction<ServerResponse> albumRoutes(AlbumHandler handler) {
+        return RouterFunctions.route()
+                .path("/api/v1/album", builder -> builder
+                        .GET("/export", handler::export)
+                        .GET("/{id}", handler::getById)
+                        .PUT("/{id}", handler::update)
+                        .DELETE("/{id}", handler::delete)
+                        .GET(handler::list)
+                        .POST(handler::create))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.northcoders.recordapi.reactive;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.model.GenreDeserializer;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// R2DBC mapping of the album table, serialises to the same JSON as the JPA Album
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("album")
+public class AlbumRow {
+
+    @Id
+    @Column("album_id")
+    private Long albumId;
+
+    @NotBlank(message = "Title must not be blank")
+    private String title;
+
+    // Accepted on create, but not written out, the JPA Album does not serialise its artist either
+    @Column("artist_id")
+    @NotNull(message = "Artist is required")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Long artistId;
+
+    @NotNull(message = "Genre is required")
+    @JsonDeserialize(using = GenreDeserializer.class)
+    private Genre genre;
+
+    @Column("release_year")
+    private int releaseYear;
+
+    private int stock;
+
+    private double price;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+}
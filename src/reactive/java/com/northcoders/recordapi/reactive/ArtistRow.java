@@ -0,0 +1,22 @@
+package com.northcoders.recordapi.reactive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+// R2DBC mapping of the artist table
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("artist")
+public class ArtistRow {
+
+    @Id
+    @Column("artist_id")
+    private Long artistId;
+
+    private String name;
+}
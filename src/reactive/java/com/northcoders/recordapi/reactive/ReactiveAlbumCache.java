@@ -0,0 +1,56 @@
+package com.northcoders.recordapi.reactive;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.northcoders.recordapi.config.AlbumCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+// Async counterpart of AlbumCache: same size and expiry settings, one load per id shared by all subscribers
+@Component
+@Profile("reactive")
+public class ReactiveAlbumCache {
+
+    private final AsyncCache<Long, AlbumRow> albumCache;
+
+    public ReactiveAlbumCache(AlbumCacheProperties properties, MeterRegistry meterRegistry) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats();
+        if (!properties.getExpireAfterWrite().isZero()) {
+            builder.expireAfterWrite(properties.getExpireAfterWrite());
+        }
+        if (!properties.getExpireAfterAccess().isZero()) {
+            builder.expireAfterAccess(properties.getExpireAfterAccess());
+        }
+        this.albumCache = builder.buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, albumCache.synchronous(), "album-reactive");
+    }
+
+    // The loader runs once per id, an empty result is not cached
+    public Mono<AlbumRow> getOrLoad(Long id, Function<Long, Mono<AlbumRow>> loader) {
+        return Mono.fromFuture(() -> albumCache.get(id, (key, executor) -> loader.apply(key).toFuture()));
+    }
+
+    // Stores the album unless a newer version of it is already cached
+    public void putAlbum(AlbumRow album) {
+        albumCache.synchronous().asMap().compute(album.getAlbumId(), (id, existing) ->
+                existing != null && isNewer(existing, album) ? existing : album);
+    }
+
+    public void evict(Long id) {
+        albumCache.synchronous().invalidate(id);
+    }
+
+    private static boolean isNewer(AlbumRow cached, AlbumRow candidate) {
+        return cached.getVersion() != null && candidate.getVersion() != null
+                && cached.getVersion() > candidate.getVersion();
+    }
+}
@@ -0,0 +1,21 @@
+package com.northcoders.recordapi.reactive;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking mirror of AlbumRepository
+@Repository
+public interface ReactiveAlbumRepository extends R2dbcRepository<AlbumRow, Long> {
+
+    Mono<AlbumRow> findByTitleAndArtistIdAndReleaseYear(String title, Long artistId, int releaseYear);
+
+    // Keyset page: the next albums after the given id
+    @Query("SELECT * FROM album WHERE album_id > :after ORDER BY album_id LIMIT :limit")
+    Flux<AlbumRow> findPage(Long after, int limit);
+
+    // Whole catalogue, rows are pulled from the driver as the subscriber requests them
+    Flux<AlbumRow> findAllByOrderByAlbumIdAsc();
+}
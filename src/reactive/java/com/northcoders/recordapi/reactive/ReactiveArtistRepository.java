@@ -0,0 +1,9 @@
+package com.northcoders.recordapi.reactive;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+// Non-blocking mirror of ArtistRepository
+@Repository
+public interface ReactiveArtistRepository extends R2dbcRepository<ArtistRow, Long> {
+}
@@ -0,0 +1,122 @@
+package com.northcoders.recordapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Two separate H2 databases stand in for a primary and its replica, each says which one it is
+public class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primary = database("routing-primary");
+        DataSource replica = database("routing-replica");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+                Duration.ofSeconds(2), new SimpleMeterRegistry());
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        ReadYourWrites.end();
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        setup.execute("DELETE FROM node");
+        setup.update("INSERT INTO node VALUES (?)", name);
+        setup.execute("CREATE TABLE IF NOT EXISTS purchase (id BIGINT)"); // Target of the writes, node keeps one row
+        return dataSource;
+    }
+
+    private String whoAnswers(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    public void testReadOnlyTransaction_UsesReplica() {
+        assertEquals("routing-replica", whoAnswers(readOnly));
+    }
+
+    @Test
+    public void testReadWriteTransaction_UsesPrimary() {
+        assertEquals("routing-primary", whoAnswers(readWrite));
+    }
+
+    @Test
+    public void testReadAfterWrite_SticksToPrimary() {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        // Act
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO purchase VALUES (1)"));
+        String reader = whoAnswers(readOnly);
+
+        // Assert - this request and the client's next ones
+        assertEquals("routing-primary", reader);
+        assertNotNull(response.getCookie(ReadYourWrites.COOKIE_NAME));
+    }
+
+    @Test
+    public void testOnPrimary_ReadOnlyTransactionUsesPrimary() {
+        assertEquals("routing-primary", ReadYourWrites.onPrimary(() -> whoAnswers(readOnly)));
+        assertEquals("routing-replica", whoAnswers(readOnly)); // Only for the duration of the call
+    }
+
+    @Test
+    public void testReadWithFreshCookie_SticksToPrimary() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE_NAME, String.valueOf(System.currentTimeMillis() + 2000)));
+
+        // Act
+        ReadYourWrites.begin(request);
+
+        // Assert
+        assertEquals("routing-primary", whoAnswers(readOnly));
+    }
+
+    @Test
+    public void testReadWithExpiredCookie_UsesReplica() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1)));
+
+        // Act
+        ReadYourWrites.begin(request);
+
+        // Assert
+        assertEquals("routing-replica", whoAnswers(readOnly));
+    }
+}
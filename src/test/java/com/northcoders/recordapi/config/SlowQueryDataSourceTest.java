@@ -0,0 +1,65 @@
+package com.northcoders.recordapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SlowQueryDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowQueryLog slowQueryLog;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setThreshold(Duration.ZERO); // Everything counts as slow
+        properties.setMaxParameterLength(5);
+        meterRegistry = new SimpleMeterRegistry();
+        slowQueryLog = new SlowQueryLog(properties, meterRegistry);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<SlowQueryLog> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(slowQueryLog);
+        DriverManagerDataSource target = new DriverManagerDataSource("jdbc:h2:mem:slow-query;DB_CLOSE_DELAY=-1", "sa", "");
+        // Created on the unwrapped data source so it stays out of the log and the meters
+        new JdbcTemplate(target).execute("CREATE TABLE IF NOT EXISTS track (id BIGINT, title VARCHAR(100))");
+        jdbcTemplate = new JdbcTemplate(new SlowQueryDataSource(target, provider));
+    }
+
+    @Test
+    public void testSlowStatement_RecordedWithParametersAndCaller() {
+        // Act
+        jdbcTemplate.update("INSERT INTO track VALUES (?, ?)", 7L, "Paranoid Android");
+
+        // Assert
+        List<SlowQueryLog.Entry> recent = slowQueryLog.recent();
+        assertEquals(1, recent.size());
+        SlowQueryLog.Entry entry = recent.get(0);
+        assertEquals("INSERT INTO track VALUES (?, ?)", entry.sql());
+        assertEquals(List.of("7", "Paran..."), entry.parameters());
+        assertTrue(entry.caller().startsWith("SlowQueryDataSourceTest."));
+        assertEquals(1, meterRegistry.get("jdbc.statements").timer().count());
+    }
+
+    @Test
+    public void testBatch_RecordedOnceWithBatchSize() {
+        // Act
+        jdbcTemplate.batchUpdate("INSERT INTO track VALUES (?, ?)", List.of(new Object[]{1L, "a"}, new Object[]{2L, "b"}));
+
+        // Assert
+        List<SlowQueryLog.Entry> recent = slowQueryLog.recent();
+        assertEquals(1, recent.size());
+        assertEquals(2, recent.get(0).batchSize());
+    }
+}
@@ -1,16 +1,27 @@
 package com.northcoders.recordapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.northcoders.recordapi.config.HttpCacheProperties;
 import com.northcoders.recordapi.exception.AlbumAlreadyExistsException;
 import com.northcoders.recordapi.exception.AlbumNotFoundException;
+import com.northcoders.recordapi.dto.AlbumRepresentation;
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.dto.BulkImportResult;
 import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
 import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.service.AlbumCache;
 import com.northcoders.recordapi.service.AlbumService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
@@ -25,7 +36,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.io.ByteArrayInputStream;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -45,6 +58,15 @@ public class AlbumControllerTest {
     @Mock
     private AlbumService albumService;
 
+    @Spy
+    private HttpCacheProperties httpCacheProperties = new HttpCacheProperties();
+
+    @Spy
+    private ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private AlbumController albumController;
 
@@ -66,11 +88,11 @@ public class AlbumControllerTest {
     @Test
     public void testGetAllAlbums() throws Exception {
         // Arrange
-        Album album1 = new Album("Album 1", "Artist 1", Genre.ROCK, 2021, 10, 9.99);
-        Album album2 = new Album("Album 2", "Artist 2", Genre.POP, 2022, 15, 12.99);
-        List<Album> albums = Arrays.asList(album1, album2);
+        AlbumSummary album1 = new AlbumSummary(1L, "Album 1", 1L, "Artist 1", Genre.ROCK, 2021, 10, 9.99, 1L);
+        AlbumSummary album2 = new AlbumSummary(2L, "Album 2", 2L, "Artist 2", Genre.POP, 2022, 15, 12.99, 1L);
+        List<AlbumSummary> albums = Arrays.asList(album1, album2);
 
-        when(albumService.getAllAlbums()).thenReturn(albums);
+        when(albumService.getAlbumsAfter(0L, 51)).thenReturn(albums);
 
         // Act
         mockMvc.perform(get("/api/v1/album"))
@@ -79,69 +101,193 @@ public class AlbumControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Album 1"))
                 .andExpect(jsonPath("$[1].title").value("Album 2"))
+                .andExpect(jsonPath("$[1].artistName").value("Artist 2"))
                 .andReturn();
-        verify(albumService, times(1)).getAllAlbums();
+        verify(albumService, times(1)).getAlbumsAfter(0L, 51);
     }
 
     @Test
     public void testGetAllAlbums_Empty() throws Exception {
         // Arrange
-        when(albumService.getAllAlbums()).thenReturn(Collections.emptyList());
+        when(albumService.getAlbumsAfter(0L, 51)).thenReturn(Collections.emptyList());
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/album"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
-        verify(albumService, times(1)).getAllAlbums();
+        verify(albumService, times(1)).getAlbumsAfter(0L, 51);
+    }
+
+    @Test
+    public void testGetAllAlbums_NextPageLink() throws Exception {
+        // Arrange - three rows back for a page size of two means another page exists
+        List<AlbumSummary> albums = new ArrayList<>();
+        for (long id = 11; id <= 13; id++) {
+            albums.add(new AlbumSummary(id, "Album " + id, 1L, "Artist 1", Genre.ROCK, 2021, 10, 9.99, 1L));
+        }
+        when(albumService.getAlbumsAfter(10L, 3)).thenReturn(albums);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/album").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("Link", org.hamcrest.Matchers.containsString("after=12")))
+                .andExpect(header().string("Link", org.hamcrest.Matchers.endsWith("rel=\"next\"")));
+    }
+
+    @Test
+    public void testSearchAlbums() throws Exception {
+        // Arrange
+        AlbumSummary album = new AlbumSummary(7L, "Kind of Blue", 2L, "Miles Davis", Genre.JAZZ, 1959, 3, 19.99, 1L);
+        AlbumSearchCriteria criteria = new AlbumSearchCriteria(Genre.JAZZ, 2L, 1950, 1960, null, 25.0, true);
+        when(albumService.searchAlbums(criteria, 0L, 51)).thenReturn(List.of(album));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/album/search")
+                        .param("genre", "JAZZ")
+                        .param("artistId", "2")
+                        .param("minYear", "1950")
+                        .param("maxYear", "1960")
+                        .param("maxPrice", "25")
+                        .param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Kind of Blue"));
+        verify(albumService, times(1)).searchAlbums(criteria, 0L, 51);
+    }
+
+    @Test
+    public void testExportAlbums() throws Exception {
+        // Arrange - the service writes straight to the response stream
+        when(albumService.exportAlbums(any())).thenAnswer(invocation -> {
+            java.io.OutputStream out = invocation.getArgument(0);
+            out.write("{\"albumId\":1}\n{\"albumId\":2}\n".getBytes());
+            return 2L;
+        });
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/album/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"albumId\":1}\n{\"albumId\":2}\n"));
+        verify(albumService, times(1)).exportAlbums(any());
     }
 
     @Test
     public void testGetAlbumById() throws Exception {
         // Arrange
-        Album album = new Album(1L, "Album 1", "Artist 1", Genre.ROCK, 2021, 10, 9.99, null, null);
-        when(albumService.getAlbumById(1L)).thenReturn(Optional.of(album));
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2021, 10, 9.99);
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.of(representation(new AlbumCache.AlbumCachedObject(album))));
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/album/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Album 1"));
-        verify(albumService, times(1)).getAlbumById(1L);
+        verify(albumService, times(1)).getCachedAlbum(1L);
+    }
+
+    @Test
+    public void testGetAlbumById_NotModified() throws Exception {
+        // Arrange
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2021, 10, 9.99);
+        album.setAlbumId(1L);
+        album.setVersion(3L);
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.of(representation(new AlbumCache.AlbumCachedObject(album))));
+
+        // Act & Assert - first response carries the validators, replaying the ETag gets an empty 304
+        mockMvc.perform(get("/api/v1/album/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "max-age=0, must-revalidate, public"));
+        // The revalidation must not build a body at all
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.of(new AlbumRepresentation(album, 3L,
+                () -> { throw new AssertionError("Body built for a 304"); },
+                () -> { throw new AssertionError("Body built for a 304"); })));
+        mockMvc.perform(get("/api/v1/album/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(content().string(""));
     }
 
     @Test
     public void testGetAlbumById_NotFound() throws Exception {
         // Arrange
-        when(albumService.getAlbumById(1L)).thenReturn(Optional.empty());
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/album/1"))
                 .andExpect(status().isNotFound());
-        verify(albumService, times(1)).getAlbumById(1L);
+        verify(albumService, times(1)).getCachedAlbum(1L);
+    }
+
+    @Test
+    public void testGetAlbumById_Gzipped() throws Exception {
+        // Arrange
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2021, 10, 9.99);
+        album.setAlbumId(1L);
+        album.setVersion(3L);
+        AlbumCache.AlbumCachedObject entry = new AlbumCache.AlbumCachedObject(album);
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.of(representation(entry)));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/album/1").header("Accept-Encoding", "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"1-3-gz\""))
+                .andReturn();
+
+        // Assert - the body is exactly the bytes held by the cache entry
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertTrue(Arrays.equals(entry.gzippedJson(jsonMapper), body));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("Album 1", jsonMapper.readTree(in).get("title").asText());
+        }
+    }
+
+    @Test
+    public void testGetAlbumById_GzipRefusedByQValue_PlainJson() throws Exception {
+        // Arrange
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2021, 10, 9.99);
+        album.setAlbumId(1L);
+        album.setVersion(3L);
+        AlbumCache.AlbumCachedObject entry = new AlbumCache.AlbumCachedObject(album);
+        when(albumService.getCachedAlbum(1L)).thenReturn(Optional.of(representation(entry)));
+
+        // Act & Assert - gzip listed with q=0, or only reachable through a refused wildcard
+        for (String acceptEncoding : List.of("gzip;q=0", "identity, *;q=0", "br, gzip; q=0.000")) {
+            mockMvc.perform(get("/api/v1/album/1").header("Accept-Encoding", acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Content-Encoding"))
+                    .andExpect(header().string("ETag", "\"1-3\""));
+        }
+        // A wildcard with a positive weight still gets the gzipped bytes
+        mockMvc.perform(get("/api/v1/album/1").header("Accept-Encoding", "identity;q=0.5, *;q=0.1"))
+                .andExpect(header().string("Content-Encoding", "gzip"));
     }
 
     @Test
     public void testCreateAlbum_ObjectMapper() throws Exception {
         // Arrange
-        Album createdAlbum = new Album(1L, "New Album", "New Artist", Genre.JAZZ, 2023, 20, 14.99, null, null);
+        Album createdAlbum = new Album(1L, "New Album", new Artist(null, "New Artist", null), Genre.JAZZ, 2023, 20, 14.99, null, null, null);
         when(albumService.createAlbum(Mockito.any(Album.class))).thenReturn(createdAlbum);
 
         // Act
         this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(createdAlbum)))
+                .content(albumJsonWithArtist(createdAlbum)))
 
                 // Assert
                 .andExpect(MockMvcResultMatchers.status().isCreated())
                 .andExpect(jsonPath("$.title").value("New Album"))
-                .andExpect(jsonPath("$.artist").value("New Artist"));
+                .andExpect(jsonPath("$.artist").doesNotExist()); // Back reference, only serialised from the Artist side
         verify(albumService, times(1)).createAlbum(Mockito.any(Album.class));
     }
 
     @Test
     public void testCreateAlbum_WithoutObjectMapper() throws Exception {
         // Arrange
-        Album album = new Album(null, "New Album", "New Artist", Genre.JAZZ, 2023, 20, 14.99, null, null);
-        Album createdAlbum = new Album(1L, "New Album", "New Artist", Genre.JAZZ, 2023, 20, 14.99, null, null);
+        Album album = new Album(null, "New Album", new Artist(null, "New Artist", null), Genre.JAZZ, 2023, 20, 14.99, null, null, null);
+        Album createdAlbum = new Album(1L, "New Album", new Artist(null, "New Artist", null), Genre.JAZZ, 2023, 20, 14.99, null, null, null);
         when(albumService.createAlbum(Mockito.any(Album.class))).thenReturn(createdAlbum);
 
         // Act & Assert
@@ -150,7 +296,7 @@ public class AlbumControllerTest {
                         .content("""
                                 {
                                     "title": "New Album",
-                                    "artist": "New Artist",
+                                    "artist": {"artistId": 1, "name": "New Artist"},
                                     "genre": "JAZZ",
                                     "releaseYear": 2023,
                                     "stock": 20,
@@ -167,17 +313,17 @@ public class AlbumControllerTest {
     @Test
     public void testCreateAlbum_Ver2() throws Exception {
         // Arrange
-        Album createdAlbum = new Album(1L, "New Album", "New Artist", Genre.JAZZ, 2023, 20, 14.99, null, null);
+        Album createdAlbum = new Album(1L, "New Album", new Artist(null, "New Artist", null), Genre.JAZZ, 2023, 20, 14.99, null, null, null);
         when(albumService.createAlbum(Mockito.any(Album.class))).thenReturn(createdAlbum);
 
         // Act & Assert
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album") // Ensure the URL matches the controller's mapping
                         .contentType(MediaType.APPLICATION_JSON)  // Content type should match the controller's expected type
-                        .content(objectMapper.writeValueAsString(createdAlbum)))  // Convert the created album to JSON
+                        .content(albumJsonWithArtist(createdAlbum)))  // Convert the created album to JSON
 
                 .andExpect(status().isCreated())  // Expect status code 201 (Created)
                 .andExpect(jsonPath("$.title").value("New Album"))  // Validate the response body
-                .andExpect(jsonPath("$.artist").value("New Artist"));
+                .andExpect(jsonPath("$.artist").doesNotExist()); // Back reference, only serialised from the Artist side
 
         // Verify that the service method was called exactly once
         verify(albumService, times(1)).createAlbum(Mockito.any(Album.class));
@@ -186,7 +332,7 @@ public class AlbumControllerTest {
     @Test
     public void testCreateEmptyAlbum() throws Exception {
         // Arrange: Create an empty album object
-        Album emptyAlbum = new Album(null, null, null, null, 0, 0, 0.0, null, null);
+        Album emptyAlbum = new Album(null, null, null, null, 0, 0, 0.0, null, null, null);
 
         // Act & Assert: Perform POST with empty data and expect a 400 Bad Request
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album")
@@ -200,7 +346,7 @@ public class AlbumControllerTest {
         // Arrange: Create an album with invalid data (e.g., a non-numeric value for 'releaseYear')
         String invalidAlbumJson = "{"
                 + "\"title\": \"New Album\","
-                + "\"artist\": \"New Artist\","
+                + "\"artist\": {\"artistId\": 1, \"name\": \"New Artist\"},"
                 + "\"genre\": \"JAZZ\","
                 + "\"releaseYear\": \"invalid_year\","
                 + "\"stock\": 20,"
@@ -217,7 +363,7 @@ public class AlbumControllerTest {
     @Test
     public void testUpdateAlbum() throws Exception {
         // Arrange
-        Album album = new Album(1L, "Updated Album", "Updated Artist", Genre.ROCK, 2023, 30, 19.99, null, null);
+        Album album = new Album(1L, "Updated Album", new Artist(null, "Updated Artist", null), Genre.ROCK, 2023, 30, 19.99, null, null, null);
         when(albumService.updateAlbum(eq(1L), Mockito.any(Album.class))).thenReturn(album);
 
         // Act & Assert
@@ -226,7 +372,7 @@ public class AlbumControllerTest {
                         .content("""
                                 {
                                     "title": "Updated Album",
-                                    "artist": "Updated Artist",
+                                    "artist": {"artistId": 1, "name": "Updated Artist"},
                                     "genre": "ROCK",
                                     "releaseYear": 2023,
                                     "stock": 30,
@@ -249,7 +395,7 @@ public class AlbumControllerTest {
                         .content("""
                                 {
                                     "title": "Updated Album",
-                                    "artist": "Updated Artist",
+                                    "artist": {"artistId": 1, "name": "Updated Artist"},
                                     "genre": "ROCK",
                                     "releaseYear": 2023,
                                     "stock": 30,
@@ -263,7 +409,7 @@ public class AlbumControllerTest {
     @Test
     public void testPutEmptyAlbum() throws Exception {
         // Arrange: Create an empty album object
-        Album emptyAlbum = new Album(null, null, null, null, 0, 0, 0.0, null, null);
+        Album emptyAlbum = new Album(null, null, null, null, 0, 0, 0.0, null, null, null);
 
         // Mock the service: when trying to update album with ID 1, return null (simulate a failure, could also be a valid object)
         when(albumService.updateAlbum(eq(1L), any(Album.class))).thenReturn(null); // Simulating that the album is not found or not updated
@@ -283,7 +429,7 @@ public class AlbumControllerTest {
         // Arrange: Create an album with invalid data (e.g., invalid 'releaseYear')
         String invalidAlbumJson = "{"
                 + "\"title\": \"Updated Album\","
-                + "\"artist\": \"Updated Artist\","
+                + "\"artist\": {\"artistId\": 1, \"name\": \"Updated Artist\"},"
                 + "\"genre\": \"JAZZ\","
                 + "\"releaseYear\": \"invalid_year\","
                 + "\"stock\": 20,"
@@ -300,7 +446,7 @@ public class AlbumControllerTest {
     @Test
     public void testDeleteAlbum_Success() throws Exception {
         // Arrange
-        Album album = new Album(1L, "Album to Delete", "Artist", Genre.CLASSICAL, 2020, 5, 9.99, null, null);
+        Album album = new Album(1L, "Album to Delete", new Artist(null, "Artist", null), Genre.CLASSICAL, 2020, 5, 9.99, null, null, null);
         when(albumService.deleteAlbum(1L)).thenReturn(Optional.of(album));  // Mock successful deletion
 
         // Act & Assert
@@ -341,7 +487,7 @@ public class AlbumControllerTest {
     @Test
     public void testCreateDuplicateAlbum() throws Exception {
         // Arrange: Create a duplicate album
-        Album duplicateAlbum = new Album(null, "The Dark Side of the Moon", "Pink Floyd", Genre.ROCK, 1973, 10, 29.99, null, null);
+        Album duplicateAlbum = new Album(null, "The Dark Side of the Moon", new Artist(null, "Pink Floyd", null), Genre.ROCK, 1973, 10, 29.99, null, null, null);
 
         // Mock the service to throw AlbumAlreadyExistsException when trying to create the album
         when(albumService.createAlbum(any(Album.class)))
@@ -350,7 +496,7 @@ public class AlbumControllerTest {
         // Act & Assert: Perform POST request and expect 409 Conflict with the error message
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(duplicateAlbum)))
+                        .content(albumJsonWithArtist(duplicateAlbum)))
                 .andReturn();
 
         // Assert: Verify the status and response body
@@ -365,13 +511,13 @@ public class AlbumControllerTest {
     @Test
     public void testUpdateAlbumNotFound() throws Exception {
         // Given
-        Album album = new Album(null, "Dark Side of the Moon", "Pink Floyd", Genre.ROCK, 1973, 10, 29.99, null, null);
+        Album album = new Album(null, "Dark Side of the Moon", new Artist(null, "Pink Floyd", null), Genre.ROCK, 1973, 10, 29.99, null, null, null);
         when(albumService.updateAlbum(anyLong(), any(Album.class))).thenThrow(new AlbumNotFoundException("Album with ID 999 not found"));
 
         // When & Then
         mockMvc.perform(put("/api/v1/album/{id}", 999L)
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(album)))
+                        .content(albumJsonWithArtist(album)))
                 .andExpect(status().isNotFound())  // Status 404 Not Found
                 .andExpect(content().string("{\"error\":\"Album with ID 999 not found\"}"));
     }
@@ -379,7 +525,7 @@ public class AlbumControllerTest {
     @Test
     public void testUpdateAlbumBadRequest_FieldIsBlank() throws Exception {
         // Given: Invalid data (missing title)
-        Album album = new Album(null, "", "Pink Floyd", Genre.ROCK, 1973, 10, 29.99, null, null);
+        Album album = new Album(null, "", new Artist(null, "Pink Floyd", null), Genre.ROCK, 1973, 10, 29.99, null, null, null);
 
         // When & Then
         mockMvc.perform(put("/api/v1/album/{id}", 1L)
@@ -392,7 +538,7 @@ public class AlbumControllerTest {
 //    @Test
 //    public void testUpdateAlbumBadRequest() throws Exception {
 //        // Given: Invalid data (missing fields)
-//        Album album = new Album(null, "", "", null, 1999, 6, 44, null, null);
+//        Album album = new Album(null, "", new Artist(null, "", null), null, 1999, 6, 44, null, null, null);
 //
 //        // When & Then
 //        mockMvc.perform(put("/api/v1/album/{id}", 7L)
@@ -414,7 +560,7 @@ public class AlbumControllerTest {
         String invalidAlbumJson = """
         {
             "title": "Test Album",
-            "artist": "Test Artist",
+            "artist": {"artistId": 1, "name": "Test Artist"},
             "genre": "INVALID_GENRE",
             "releaseYear": 2023,
             "stock": 10,
@@ -430,4 +576,89 @@ public class AlbumControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.genre").value("Invalid genre: INVALID_GENRE"));
     }
+
+    @Test
+    public void testImportAlbumsNdjson_RowsStreamedToTheService() throws Exception {
+        // Arrange - the service pulls the rows like the real import does
+        when(albumService.importAlbums(any())).thenAnswer(invocation -> {
+            Iterator<?> rows = invocation.getArgument(0);
+            int created = 0;
+            for (; rows.hasNext(); rows.next()) {
+                created++;
+            }
+            return new BulkImportResult(created, 0);
+        });
+        String ndjson = """
+                {"title":"Animals","artistId":1,"genre":"ROCK","releaseYear":1977,"stock":20,"price":17.99}
+                {"title":"Meddle","artistId":1,"genre":"ROCK","releaseYear":1971,"stock":5,"price":12.99}
+                """;
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+    }
+
+    @Test
+    public void testImportAlbums_JsonArrayStreamedToTheService() throws Exception {
+        // Arrange
+        when(albumService.importAlbums(any())).thenAnswer(invocation -> {
+            Iterator<?> rows = invocation.getArgument(0);
+            int created = 0;
+            for (; rows.hasNext(); rows.next()) {
+                created++;
+            }
+            return new BulkImportResult(created, 0);
+        });
+        String json = """
+                [{"title":"Animals","artistId":1,"genre":"ROCK","releaseYear":1977,"stock":20,"price":17.99},
+                 {"title":"Meddle","artistId":1,"genre":"ROCK","releaseYear":1971,"stock":5,"price":12.99}]
+                """;
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+    }
+
+    @Test
+    public void testImportAlbums_NotAnArray_BadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Animals\"}"))
+                .andExpect(status().isBadRequest());
+        verify(albumService, never()).importAlbums(any());
+    }
+
+    @Test
+    public void testImportAlbumsNdjson_MalformedLine_BadRequest() throws Exception {
+        // Arrange
+        when(albumService.importAlbums(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<?>>getArgument(0).forEachRemaining(row -> { });
+            return new BulkImportResult(0, 0);
+        });
+
+        // Act & Assert - a 400 from the parser, not the 500 of the generic handler
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/album/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"title\":\"Animals\",\"artistId\":}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(org.hamcrest.Matchers.startsWith("Row [0]")));
+    }
+
+    // Album JSON never carries the artist (back reference), requests have to add it themselves
+    private String albumJsonWithArtist(Album album) throws Exception {
+        ObjectNode json = objectMapper.valueToTree(album);
+        json.putObject("artist").put("artistId", 1).put("name", album.getArtist().getName());
+        return json.toString();
+    }
+
+    private AlbumRepresentation representation(AlbumCache.AlbumCachedObject entry) {
+        return new AlbumRepresentation(entry.getCachedAlbum(), entry.getCachedAlbum().getVersion(),
+                () -> entry.json(jsonMapper), () -> entry.gzippedJson(jsonMapper));
+    }
 }
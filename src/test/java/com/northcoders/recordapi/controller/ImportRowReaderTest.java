@@ -0,0 +1,103 @@
+package com.northcoders.recordapi.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.exception.InvalidImportException;
+import com.northcoders.recordapi.model.Genre;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ImportRowReaderTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static AlbumImportRow row(String title) {
+        return new AlbumImportRow(title, 1L, Genre.ROCK, 1977, 20, 17.99);
+    }
+
+    // The rows as NDJSON, read back through the same MappingIterator the controller uses
+    private ImportRowReader reader(List<AlbumImportRow> rows, int maxRows) throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (AlbumImportRow row : rows) {
+            ndjson.append(objectMapper.writeValueAsString(row)).append('\n');
+        }
+        return ImportRowReader.of(objectMapper.readerFor(AlbumImportRow.class).readValues(ndjson.toString()),
+                validator, maxRows);
+    }
+
+    private static List<AlbumImportRow> drain(ImportRowReader reader) {
+        List<AlbumImportRow> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+
+    @Test
+    public void testReadsRowsAsTheyAreAskedFor() throws IOException {
+        // Arrange
+        String ndjson = """
+                {"title":"Animals","artistId":1,"genre":"ROCK","releaseYear":1977,"stock":20,"price":17.99}
+                {"title":"Meddle","artistId":1,"genre":"ROCK","releaseYear":1971,"stock":5,"price":12.99}
+                """;
+        MappingIterator<AlbumImportRow> iterator = objectMapper.readerFor(AlbumImportRow.class).readValues(ndjson);
+
+        // Act
+        List<AlbumImportRow> rows = drain(ImportRowReader.of(iterator, validator, 10));
+
+        // Assert
+        assertEquals(List.of("Animals", "Meddle"), rows.stream().map(AlbumImportRow::title).toList());
+    }
+
+    @Test
+    public void testMalformedLine_BadRequest() throws IOException {
+        // Arrange - the second line is cut off
+        String ndjson = """
+                {"title":"Animals","artistId":1,"genre":"ROCK","releaseYear":1977,"stock":20,"price":17.99}
+                {"title":"Meddle","artistId":
+                """;
+        ImportRowReader reader = ImportRowReader.of(
+                objectMapper.readerFor(AlbumImportRow.class).readValues(ndjson), validator, 10);
+
+        // Act & Assert - the first row is handed out before the second one is parsed
+        assertEquals("Animals", reader.next().title());
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, reader::hasNext);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    public void testMoreRowsThanTheCap_PayloadTooLarge() throws IOException {
+        // Arrange
+        ImportRowReader reader = reader(List.of(row("A"), row("B"), row("C")), 2);
+
+        // Act & Assert
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> drain(reader));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+    }
+
+    @Test
+    public void testInvalidRows_ErrorsKeyedByIndexThrownAtTheEnd() throws IOException {
+        // Arrange - rows after the first invalid one are validated but not handed out
+        ImportRowReader reader = reader(List.of(row("A"), row(""), row("C"), row(" ")), 10);
+
+        // Act
+        List<AlbumImportRow> handedOut = new ArrayList<>();
+        InvalidImportException e = assertThrows(InvalidImportException.class,
+                () -> reader.forEachRemaining(handedOut::add));
+
+        // Assert
+        assertEquals(List.of(row("A")), handedOut);
+        assertEquals(List.of("[1].title", "[3].title"), List.copyOf(e.getErrors().keySet()));
+    }
+}
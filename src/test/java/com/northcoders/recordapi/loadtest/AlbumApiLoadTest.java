@@ -0,0 +1,217 @@
+package com.northcoders.recordapi.loadtest;
+
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.ArtistRepository;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Open-loop HTTP load against the album API on H2, run with: mvn -Ploadtest test
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "logging.level.com.northcoders.recordapi=warn",
+        "logging.level.com.northcoders.recordapi.loadtest=info" // The report below
+})
+public class AlbumApiLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumApiLoadTest.class);
+
+    private static final int READ_ALBUMS = 1000;
+    private static final int DELETABLE_ALBUMS = 5000;
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ArtistRepository artistRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong createdCounter = new AtomicLong();
+    private final ConcurrentLinkedQueue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+    private long[] readIds;
+    private Long artistId;
+
+    private enum Operation { GET, LIST, CREATE, UPDATE, DELETE }
+
+    private record Stats(Histogram latency, AtomicLong errors) {
+        Stats() {
+            this(new ConcurrentHistogram(MAX_LATENCY_NANOS, 3), new AtomicLong());
+        }
+    }
+
+    @Test
+    public void mixedWorkload() throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 20);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+                "get=60,list=20,create=10,update=5,delete=5"));
+        seed();
+
+        Map<Operation, Stats> stats = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+        Operation[] schedule = buildSchedule(mix);
+
+        // Requests are started on a fixed schedule and timed from when they were due,
+        // so a slow server shows up as latency instead of silently lowering the rate
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * durationSeconds;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = schedule[(int) (i % schedule.length)];
+                executor.submit(() -> {
+                    Stats operationStats = stats.get(operation);
+                    try {
+                        int status = send(operation);
+                        if (status >= 400) {
+                            operationStats.errors().incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        operationStats.errors().incrementAndGet();
+                    }
+                    operationStats.latency().recordValue(Math.min(System.nanoTime() - due, MAX_LATENCY_NANOS));
+                });
+            }
+        } // Closing the executor waits for the in-flight requests
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long requests = 0;
+        long errors = 0;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Album API load test: %d req/s target for %ds%n", rate, durationSeconds));
+        report.append(String.format("%-8s %8s %7s %9s %9s %9s %9s%n", "op", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram latency = entry.getValue().latency();
+            if (latency.getTotalCount() == 0) {
+                continue;
+            }
+            requests += latency.getTotalCount();
+            errors += entry.getValue().errors().get();
+            report.append(String.format("%-8s %8d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), latency.getTotalCount(), entry.getValue().errors().get(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue())));
+        }
+        report.append(String.format("Throughput: %.1f req/s over %.1fs, %d errors", requests / elapsedSeconds, elapsedSeconds, errors));
+        logger.info("\n{}", report); // One entry, so the table stays together in the surefire output
+
+        assertTrue(requests > 0, "No requests were sent");
+        assertTrue(errors <= requests / 100, "More than 1% of requests failed");
+    }
+
+    private int send(Operation operation) throws Exception {
+        String base = "http://localhost:" + port + "/api/v1/album";
+        HttpRequest request = switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(base + "/" + randomReadId())).GET().build();
+            case LIST -> HttpRequest.newBuilder(URI.create(base + "?limit=50&after="
+                    + ThreadLocalRandom.current().nextInt(READ_ALBUMS))).GET().build();
+            case CREATE -> HttpRequest.newBuilder(URI.create(base + "/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            [{"title": "Load album %d", "artistId": %d, "genre": "ROCK",
+                              "releaseYear": 2024, "stock": 10, "price": 9.99}]
+                            """.formatted(createdCounter.incrementAndGet(), artistId)))
+                    .build();
+            case UPDATE -> HttpRequest.newBuilder(URI.create(base + "/" + randomReadId()))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("""
+                            {"title": "Updated album %d", "genre": "JAZZ", "releaseYear": 2020,
+                             "stock": %d, "price": 12.99}
+                            """.formatted(createdCounter.incrementAndGet(), ThreadLocalRandom.current().nextInt(100))))
+                    .build();
+            case DELETE -> {
+                Long id = deletableIds.poll();
+                if (id == null) {
+                    yield HttpRequest.newBuilder(URI.create(base + "/" + randomReadId())).GET().build();
+                }
+                yield HttpRequest.newBuilder(URI.create(base + "/" + id)).DELETE().build();
+            }
+        };
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void seed() {
+        Artist artist = artistRepository.save(new Artist(null, "Load Test Artist", null));
+        artistId = artist.getArtistId();
+        List<Album> albums = new ArrayList<>();
+        for (int i = 0; i < READ_ALBUMS + DELETABLE_ALBUMS; i++) {
+            albums.add(new Album("Seed album " + i, artist, Genre.ROCK, 2000, 100, 9.99));
+        }
+        List<Album> saved = albumRepository.saveAll(albums);
+        readIds = saved.subList(0, READ_ALBUMS).stream().mapToLong(Album::getAlbumId).toArray();
+        saved.subList(READ_ALBUMS, saved.size()).forEach(album -> deletableIds.add(album.getAlbumId()));
+    }
+
+    private long randomReadId() {
+        return readIds[ThreadLocalRandom.current().nextInt(readIds.length)];
+    }
+
+    // Spreads each operation over a 100-slot cycle according to its weight
+    private static Operation[] buildSchedule(Map<Operation, Integer> mix) {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        java.util.Collections.shuffle(slots, new java.util.Random(42));
+        return slots.toArray(new Operation[0]);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
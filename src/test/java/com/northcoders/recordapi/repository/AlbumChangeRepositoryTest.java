@@ -0,0 +1,64 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.model.AlbumChange;
+import com.northcoders.recordapi.model.AlbumChangeType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class AlbumChangeRepositoryTest {
+
+    @Autowired
+    private AlbumChangeRepository albumChangeRepository;
+
+    private void relayed(long sequence, long albumId, AlbumChangeType type) {
+        AlbumChange change = new AlbumChange(albumId, type, sequence, null);
+        change.setFeedSequence(sequence);
+        albumChangeRepository.save(change);
+    }
+
+    @Test
+    public void testDeleteSuperseded_KeepsLatestChangePerAlbum() {
+        // Arrange - album 1 changed three times, album 2 once, plus one change not yet relayed
+        relayed(1, 1L, AlbumChangeType.CREATED);
+        relayed(2, 2L, AlbumChangeType.CREATED);
+        relayed(3, 1L, AlbumChangeType.UPDATED);
+        relayed(4, 1L, AlbumChangeType.DELETED);
+        albumChangeRepository.save(new AlbumChange(2L, AlbumChangeType.UPDATED, 5L, null));
+        albumChangeRepository.flush();
+
+        // Act
+        int removed = albumChangeRepository.deleteSuperseded(LocalDateTime.now().plusMinutes(1));
+
+        // Assert
+        assertEquals(2, removed);
+        List<AlbumChange> feed = albumChangeRepository.findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(0L, Limit.of(10));
+        assertEquals(List.of(2L, 4L), feed.stream().map(AlbumChange::getFeedSequence).toList());
+        assertEquals(1, albumChangeRepository.findByFeedSequenceIsNullOrderByIdAsc(Limit.of(10)).size());
+    }
+
+    @Test
+    public void testDeleteTombstones_RemovesOnlyDeletesOlderThanRetention() {
+        // Arrange - album 1 deleted, album 2 still there
+        relayed(1, 1L, AlbumChangeType.DELETED);
+        relayed(2, 2L, AlbumChangeType.UPDATED);
+        albumChangeRepository.flush();
+
+        // Act
+        int kept = albumChangeRepository.deleteTombstones(LocalDateTime.now().minusMinutes(1));
+        int removed = albumChangeRepository.deleteTombstones(LocalDateTime.now().plusMinutes(1));
+
+        // Assert
+        assertEquals(0, kept);
+        assertEquals(1, removed);
+        List<AlbumChange> feed = albumChangeRepository.findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(0L, Limit.of(10));
+        assertEquals(List.of(2L), feed.stream().map(AlbumChange::getFeedSequence).toList());
+    }
+}
@@ -0,0 +1,159 @@
+package com.northcoders.recordapi.repository;
+
+import com.northcoders.recordapi.dto.AlbumSearchCriteria;
+import com.northcoders.recordapi.dto.AlbumSummary;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pins the number of SQL statements each read path issues, a regression to N+1 fails here
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class AlbumRepositoryTest {
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private ArtistRepository artistRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int a = 1; a <= 3; a++) {
+            Artist artist = new Artist(null, "Artist " + a, null);
+            entityManager.persist(artist);
+            for (int i = 1; i <= 4; i++) {
+                entityManager.persist(new Album("Album " + a + "-" + i, artist, Genre.JAZZ, 1960 + i, i, 10.0 + i));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindSummariesAfter_SingleQuery() {
+        List<AlbumSummary> page = albumRepository.findSummariesAfter(0L, Limit.of(10));
+
+        assertEquals(10, page.size());
+        assertEquals("Artist 1", page.get(0).artistName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount()); // Projection, no entities are materialised
+    }
+
+    @Test
+    public void testFindSummaries_SingleQuery() {
+        AlbumSearchCriteria criteria = new AlbumSearchCriteria(Genre.JAZZ, null, 1962, null, null, null, true);
+
+        List<AlbumSummary> results = albumRepository.findSummaries(AlbumSpecifications.matching(criteria, 0L), 50);
+
+        assertEquals(9, results.size());
+        assertTrue(results.stream().allMatch(album -> album.releaseYear() >= 1962));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testKeysetPage_FetchesArtistsInSameQuery() {
+        List<Album> page = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(0L, Limit.of(12));
+        page.forEach(album -> album.getArtist().getName());
+
+        assertEquals(12, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testDecrementStock_NeverGoesBelowZero() {
+        AlbumSummary album = albumRepository.findSummariesAfter(0L, Limit.of(4)).get(3); // Stock of 4
+
+        assertEquals(1, albumRepository.decrementStock(album.albumId(), 3, LocalDateTime.now()));
+        assertEquals(0, albumRepository.decrementStock(album.albumId(), 2, LocalDateTime.now()));
+        assertEquals(1, albumRepository.findById(album.albumId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testDecrementStock_EvictsOnlyThatAlbumFromSecondLevelCache() {
+        // Committed in their own transactions so the albums reach the second-level cache
+        TransactionTemplate separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Artist artist = separate.execute(status -> artistRepository.save(new Artist(null, "Committed artist", null)));
+        List<Long> ids = separate.execute(status -> albumRepository.saveAll(List.of(
+                        new Album("Reserved", artist, Genre.JAZZ, 1970, 5, 10.0),
+                        new Album("Untouched", artist, Genre.JAZZ, 1971, 5, 10.0)))
+                .stream().map(Album::getAlbumId).toList());
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        try {
+            ids.forEach(id -> separate.execute(status -> albumRepository.findById(id))); // Puts both in the cache
+
+            separate.execute(status -> albumRepository.decrementStock(ids.get(0), 2, LocalDateTime.now()));
+
+            assertFalse(cache.contains(Album.class, ids.get(0)));
+            assertTrue(cache.contains(Album.class, ids.get(1)));
+            assertEquals(3, separate.execute(status -> albumRepository.findById(ids.get(0))).orElseThrow().getStock());
+        } finally {
+            separate.executeWithoutResult(status -> {
+                albumRepository.deleteAllById(ids);
+                artistRepository.deleteById(artist.getArtistId());
+            });
+        }
+    }
+
+    @Test
+    public void testArtistFindById_ServedFromSecondLevelCache() {
+        // Hibernate only caches committed rows for transactions started after the commit,
+        // so this runs in its own transactions instead of the test's
+        TransactionTemplate separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long id = separate.execute(status -> artistRepository.save(new Artist(null, "Committed artist", null)).getArtistId());
+        try {
+            separate.execute(status -> artistRepository.findById(id)); // Puts the artist in the cache
+            statistics.clear();
+
+            Optional<Artist> artist = separate.execute(status -> artistRepository.findById(id));
+
+            assertEquals("Committed artist", artist.orElseThrow().getName());
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        } finally {
+            separate.executeWithoutResult(status -> artistRepository.deleteById(id));
+        }
+    }
+
+    @Test
+    public void testFindById_FetchesArtistInSameQuery() {
+        Long id = albumRepository.findSummariesAfter(0L, Limit.of(1)).get(0).albumId();
+        statistics.clear();
+
+        Optional<Album> album = albumRepository.findById(id);
+
+        assertEquals("Artist 1", album.orElseThrow().getArtist().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
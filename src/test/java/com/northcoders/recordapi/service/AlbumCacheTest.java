@@ -3,9 +3,13 @@ package com.northcoders.recordapi.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.config.AlbumCacheProperties;
 import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
 import com.northcoders.recordapi.model.Genre;
 import com.northcoders.recordapi.repository.AlbumRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -13,8 +17,18 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 class AlbumCacheTest {
 
@@ -35,8 +49,8 @@ class AlbumCacheTest {
     @Test
     void testRemoveExpiredEntries() {
         // Arrange
-        Album album1 = new Album(1L, "Album 1", "Artist 1", Genre.ROCK, 2020, 10, 9.99, null, null);
-        Album album2 = new Album(2L, "Album 2", "Artist 2", Genre.JAZZ, 2021, 12, 14.99, null, null);
+        Album album1 = new Album(1L, "Album 1", new Artist(null, "Artist 1", null), Genre.ROCK, 2020, 10, 9.99, null, null, null);
+        Album album2 = new Album(2L, "Album 2", new Artist(null, "Artist 2", null), Genre.JAZZ, 2021, 12, 14.99, null, null, null);
 
         // Create cached objects with different lastAccessed times
         AlbumCache.AlbumCachedObject cachedAlbum1 = new AlbumCache.AlbumCachedObject(album1);
@@ -48,14 +62,7 @@ class AlbumCacheTest {
         albumCache.getAlbumCache().put(1L, cachedAlbum1);
         albumCache.getAlbumCache().put(2L, cachedAlbum2);
 
-        // Debugging: Print cache before cleanup
-        System.out.println("Cache state before cleanup: " + albumCache.getAlbumCache());
-
-        // Act
-        albumCache.removeExpiredEntries(); // Run the cleanup method
-
-        // Debugging: Print cache after cleanup
-        System.out.println("Cache state after cleanup: " + albumCache.getAlbumCache());
+        // Act - nothing to run, Caffeine expires each entry on its own deadline
 
         // Assert
         // album1 should be removed because it is expired (11 seconds old)
@@ -67,8 +74,8 @@ class AlbumCacheTest {
     @Test
     void testRemoveExpiredEntriesWhenAllExpired() {
         // Arrange
-        Album album1 = new Album(1L, "Album 1", "Artist 1", Genre.ROCK, 2020, 10, 9.99, null, null);
-        Album album2 = new Album(2L, "Album 2", "Artist 2", Genre.JAZZ, 2021, 12, 14.99, null, null);
+        Album album1 = new Album(1L, "Album 1", new Artist(null, "Artist 1", null), Genre.ROCK, 2020, 10, 9.99, null, null, null);
+        Album album2 = new Album(2L, "Album 2", new Artist(null, "Artist 2", null), Genre.JAZZ, 2021, 12, 14.99, null, null, null);
 
         // Create cached objects with expired lastAccessed times
         AlbumCache.AlbumCachedObject cachedAlbum1 = new AlbumCache.AlbumCachedObject(album1);
@@ -80,8 +87,7 @@ class AlbumCacheTest {
         albumCache.getAlbumCache().put(1L, cachedAlbum1);
         albumCache.getAlbumCache().put(2L, cachedAlbum2);
 
-        // Act
-        albumCache.removeExpiredEntries(); // Run the cleanup method
+        // Act - nothing to run, Caffeine expires each entry on its own deadline
 
         // Assert
         // After cleanup, both albums should be removed because they are expired
@@ -92,8 +98,8 @@ class AlbumCacheTest {
     @Test
     void testRemoveExpiredEntriesWhenNoExpiredEntries() {
         // Arrange
-        Album album1 = new Album(1L, "Album 1", "Artist 1", Genre.ROCK, 2020, 10, 9.99, null, null);
-        Album album2 = new Album(2L, "Album 2", "Artist 2", Genre.JAZZ, 2021, 12, 14.99, null, null);
+        Album album1 = new Album(1L, "Album 1", new Artist(null, "Artist 1", null), Genre.ROCK, 2020, 10, 9.99, null, null, null);
+        Album album2 = new Album(2L, "Album 2", new Artist(null, "Artist 2", null), Genre.JAZZ, 2021, 12, 14.99, null, null, null);
 
         // Create cached objects with fresh lastAccessed times (recently added)
         AlbumCache.AlbumCachedObject cachedAlbum1 = new AlbumCache.AlbumCachedObject(album1);
@@ -105,8 +111,7 @@ class AlbumCacheTest {
         albumCache.getAlbumCache().put(1L, cachedAlbum1);
         albumCache.getAlbumCache().put(2L, cachedAlbum2);
 
-        // Act
-        albumCache.removeExpiredEntries(); // Run the cleanup method
+        // Act - nothing to run, Caffeine expires each entry on its own deadline
 
         // Assert
         // Both albums should remain because none are expired
@@ -114,6 +119,190 @@ class AlbumCacheTest {
         assertNotNull(albumCache.getAlbum(2L));  // album2 should still exist in cache
     }
 
+    @Test
+    void testExpireAfterWriteIgnoresRecentAccess() {
+        // Arrange
+        AlbumCacheProperties properties = new AlbumCacheProperties();
+        properties.setExpireAfterWrite(Duration.ofSeconds(10));
+        AlbumCache albumCache = new AlbumCache(properties);
+        Artist artist = new Artist(1L, "Artist 1", null);
+
+        // Written 11 seconds ago but read just now
+        AlbumCache.AlbumCachedObject cachedAlbum = new AlbumCache.AlbumCachedObject(
+                new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99));
+        cachedAlbum.setWrittenAt(System.currentTimeMillis() - 11000);
+        cachedAlbum.setLastAccessed(System.currentTimeMillis());
+        albumCache.getAlbumCache().put(1L, cachedAlbum);
+
+        // Act - nothing to run, Caffeine expires each entry on its own deadline
+
+        // Assert
+        assertNull(albumCache.getAlbum(1L));
+    }
+
+    @Test
+    void testReadExtendsExpireAfterAccess() {
+        // Arrange
+        Artist artist = new Artist(1L, "Artist 1", null);
+        AlbumCache.AlbumCachedObject cachedAlbum = new AlbumCache.AlbumCachedObject(
+                new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99));
+        cachedAlbum.setLastAccessed(System.currentTimeMillis() - 15000); // 5 seconds left
+        albumCache.getAlbumCache().put(1L, cachedAlbum);
+
+        // Act
+        albumCache.getAlbum(1L);
+
+        // Assert - the read restarted the 20 second access window
+        long remaining = albumCache.getAlbumCache().get(1L).getLastAccessed() - (System.currentTimeMillis() - 20000);
+        assertTrue(remaining > 15000);
+    }
+
+    @Test
+    void testPutAlbumKeepsNewerVersion() {
+        // Arrange
+        Artist artist = new Artist(1L, "Artist 1", null);
+        Album newer = new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99);
+        newer.setVersion(3L);
+        Album stale = new Album("Album 1 (old)", artist, Genre.ROCK, 2020, 10, 9.99);
+        stale.setVersion(2L);
+        albumCache.putAlbum(1L, newer);
+
+        // Act - a slow reader tries to cache what it loaded before the update
+        albumCache.putAlbum(1L, stale);
+
+        // Assert
+        assertEquals("Album 1", albumCache.getAlbum(1L).getTitle());
+    }
+
+    @Test
+    void testEvictOnlyRemovesOneAlbum() {
+        // Arrange
+        Artist artist = new Artist(1L, "Artist 1", null);
+        albumCache.putAlbum(1L, new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99));
+        albumCache.putAlbum(2L, new Album("Album 2", artist, Genre.JAZZ, 2021, 12, 14.99));
+
+        // Act
+        albumCache.evict(1L);
+
+        // Assert
+        assertNull(albumCache.getAlbum(1L));
+        assertNotNull(albumCache.getAlbum(2L));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        // Arrange
+        Artist artist = new Artist(1L, "Artist 1", null);
+        Album album = new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        Function<Long, Optional<Album>> slowLoader = id -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(album);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act - one caller starts the load, the others arrive while it is still running
+        List<Future<Optional<Album>>> results = new ArrayList<>();
+        results.add(executor.submit(() -> albumCache.getOrLoad(1L, slowLoader)));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> albumCache.getOrLoad(1L, slowLoader)));
+        }
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        // Assert
+        for (Future<Optional<Album>> result : results) {
+            assertEquals("Album 1", result.get(5, TimeUnit.SECONDS).orElseThrow().getTitle());
+        }
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testEvictDuringLoad_LoadedRowNotCached() {
+        // Arrange - the album is deleted and evicted after the loader read it, before the load finishes
+        Artist artist = new Artist(1L, "Artist 1", null);
+        Album album = new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99);
+        Function<Long, Optional<Album>> racingLoader = id -> {
+            albumCache.evict(id);
+            return Optional.of(album);
+        };
+
+        // Act
+        Optional<Album> result = albumCache.getOrLoad(1L, racingLoader);
+
+        // Assert - this caller still gets what it read, the next one goes back to the database
+        assertEquals("Album 1", result.orElseThrow().getTitle());
+        assertNull(albumCache.getAlbum(1L));
+    }
+
+    @Test
+    void testSerialisedJsonReusedUntilAlbumChanges() {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2020, 10, 9.99);
+        album.setVersion(1L);
+        albumCache.putAlbum(1L, album);
+
+        // Act
+        byte[] first = albumCache.getOrLoadEntry(1L, id -> Optional.empty()).orElseThrow().json(objectMapper);
+        byte[] second = albumCache.getOrLoadEntry(1L, id -> Optional.empty()).orElseThrow().json(objectMapper);
+        Album updated = new Album("Album 1 (Remastered)", album.getArtist(), Genre.ROCK, 2020, 10, 9.99);
+        updated.setVersion(2L);
+        albumCache.putAlbum(1L, updated);
+        byte[] afterUpdate = albumCache.getOrLoadEntry(1L, id -> Optional.empty()).orElseThrow().json(objectMapper);
+
+        // Assert - same array while cached, rebuilt from the new version after the update
+        assertSame(first, second);
+        assertTrue(new String(afterUpdate).contains("Remastered"));
+    }
+
+    @Test
+    void testStatsCountHitsMissesAndLoads() {
+        // Arrange
+        Artist artist = new Artist(1L, "Artist 1", null);
+        Album album = new Album("Album 1", artist, Genre.ROCK, 2020, 10, 9.99);
+
+        // Act - first read misses and loads, second read hits
+        albumCache.getOrLoad(1L, id -> Optional.of(album));
+        albumCache.getOrLoad(1L, id -> Optional.of(album));
+        albumCache.evict(1L);
+
+        // Assert
+        AlbumCache.Stats stats = albumCache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadCount());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void testMetersBoundToTheRegistryGivenAtConstruction() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AlbumCache albumCache = new AlbumCache(new AlbumCacheProperties(), Runnable::run, registry);
+        Album album = new Album("Album 1", new Artist(1L, "Artist 1", null), Genre.ROCK, 2020, 10, 9.99);
+
+        // Act - a miss, then a hit
+        albumCache.getOrLoad(1L, id -> Optional.of(album));
+        albumCache.getOrLoad(1L, id -> Optional.of(album));
+
+        // Assert
+        assertEquals(2, registry.get("album.cache.read").timer().count());
+        assertEquals(1, registry.get("album.cache.load").timer().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", AlbumCache.CACHE_NAME, "result", "hit")
+                .functionCounter().count());
+    }
+
     @Test
     public void testCacheExpiration_WithDatabaseCheck_Mock() throws InterruptedException {
         // Arrange
@@ -121,7 +310,7 @@ class AlbumCacheTest {
         AlbumServiceImpl albumService = new AlbumServiceImpl();
         albumService.albumCache = albumCache; // Set up the cache
 
-        Album album = new Album(1L, "Test Album", "Artist", Genre.ROCK, 2023, 10, 9.99, null, null);
+        Album album = new Album(1L, "Test Album", new Artist(null, "Artist", null), Genre.ROCK, 2023, 10, 9.99, null, null, null);
         albumService.albumCache.putAlbum(1L, album); // Put in cache
 
         // Mocking the AlbumService method that interacts with the database (getAlbumById)
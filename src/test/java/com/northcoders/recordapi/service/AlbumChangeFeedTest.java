@@ -0,0 +1,165 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.config.ChangeFeedProperties;
+import com.northcoders.recordapi.dto.AlbumChangeEvent;
+import com.northcoders.recordapi.model.AlbumChange;
+import com.northcoders.recordapi.model.AlbumChangeType;
+import com.northcoders.recordapi.repository.AlbumChangeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@Timeout(30) // Senders run on their own threads, a test must never wait on them forever
+public class AlbumChangeFeedTest {
+
+    @Mock
+    private AlbumChangeRepository albumChangeRepository;
+
+    @Spy
+    private ChangeFeedProperties properties = new ChangeFeedProperties();
+
+    @InjectMocks
+    private AlbumChangeFeed albumChangeFeed;
+
+    // The committed feed as the repository sees it, other nodes append to it
+    private final List<AlbumChange> feed = new CopyOnWriteArrayList<>();
+
+    // Counts the events it is asked to write, optionally blocking like a client that stopped reading
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch received;
+        private final CountDownLatch release;
+
+        RecordingEmitter(int expected, CountDownLatch release) {
+            this.received = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        // The feed writes whole events, SseEmitter hands them to the response without going through send(Set)
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.countDown();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        albumChangeFeed.shutdown();
+    }
+
+    private static AlbumChange change(long sequence) {
+        AlbumChange change = new AlbumChange(1L, AlbumChangeType.UPDATED, sequence, "{}");
+        change.setFeedSequence(sequence);
+        return change;
+    }
+
+    private static List<AlbumChangeEvent> events(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(sequence -> AlbumChangeEvent.of(change(sequence))).toList();
+    }
+
+    private void readFromFeed() {
+        when(albumChangeRepository.findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(anyLong(), any()))
+                .thenAnswer(invocation -> feed.stream()
+                        .filter(change -> change.getFeedSequence() > invocation.<Long>getArgument(0))
+                        .limit(invocation.<Limit>getArgument(1).max())
+                        .toList());
+    }
+
+    @Test
+    public void testPoll_DeliversChangesRelayedByAnotherNode() throws InterruptedException {
+        // Arrange - subscribed at 5 with nothing newer, then another node relays 6 and 7
+        readFromFeed();
+        RecordingEmitter emitter = new RecordingEmitter(2, new CountDownLatch(0));
+        albumChangeFeed.subscribe(emitter, 5L);
+        feed.addAll(List.of(change(6), change(7)));
+
+        // Act - until the backlog read or a poll has picked both up
+        for (int i = 0; i < 100 && !emitter.received.await(50, TimeUnit.MILLISECONDS); i++) {
+            albumChangeFeed.poll();
+        }
+        albumChangeFeed.poll();
+
+        // Assert - the last poll resumes after what was sent
+        assertEquals(0, emitter.received.getCount());
+        verify(albumChangeRepository, atLeastOnce()).findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(eq(7L), any());
+    }
+
+    @Test
+    public void testBroadcast_SlowSubscriberDroppedWithoutBlockingTheCaller() throws InterruptedException {
+        // Arrange - caught up at 0, the client then stops reading
+        properties.setQueueCapacity(2);
+        readFromFeed();
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(1, stuck);
+        albumChangeFeed.subscribe(emitter, 0L);
+        verify(albumChangeRepository, timeout(5000).times(2))
+                .findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(eq(0L), any());
+
+        // Act - one change is being written, two queue up, the rest overflow; returns although the client is stuck
+        albumChangeFeed.broadcast(events(1, 10));
+
+        // Assert - the first change is still being written
+        assertEquals(0, albumChangeFeed.subscriberCount());
+        assertEquals(1, emitter.received.getCount());
+        stuck.countDown();
+    }
+
+    @Test
+    public void testBroadcast_CompletedEmitter_SubscriberRemoved() throws InterruptedException {
+        // Arrange - the client disconnected, writes now fail with IllegalStateException
+        readFromFeed();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                throw new IllegalStateException("ResponseBodyEmitter has already completed");
+            }
+        };
+        albumChangeFeed.subscribe(emitter, 0L);
+        verify(albumChangeRepository, timeout(5000).times(2))
+                .findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(eq(0L), any());
+
+        // Act
+        albumChangeFeed.broadcast(events(1, 1));
+
+        // Assert
+        for (int i = 0; i < 100 && albumChangeFeed.subscriberCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, albumChangeFeed.subscriberCount());
+    }
+
+    @Test
+    public void testPoll_NoSubscribers_NoQuery() {
+        albumChangeFeed.poll();
+
+        verify(albumChangeRepository, never()).findByFeedSequenceGreaterThanOrderByFeedSequenceAsc(any(), any());
+    }
+}
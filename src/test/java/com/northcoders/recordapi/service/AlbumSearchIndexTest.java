@@ -0,0 +1,95 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.dto.AlbumSuggestion;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AlbumSearchIndexTest {
+
+    private AlbumSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AlbumSearchIndex();
+        Artist pinkFloyd = new Artist(1L, "Pink Floyd", null);
+        Artist milesDavis = new Artist(2L, "Miles Davis", null);
+        index.index(album(1L, "The Dark Side of the Moon", pinkFloyd));
+        index.index(album(2L, "The Wall", pinkFloyd));
+        index.index(album(3L, "Kind of Blue", milesDavis));
+    }
+
+    private static Album album(Long id, String title, Artist artist) {
+        Album album = new Album(title, artist, Genre.ROCK, 1970, 1, 9.99);
+        album.setAlbumId(id);
+        return album;
+    }
+
+    @Test
+    void testPrefixMatchesTitle() {
+        List<AlbumSuggestion> suggestions = index.suggest("dar", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("The Dark Side of the Moon", suggestions.get(0).title());
+    }
+
+    @Test
+    void testArtistAndTitleTermsCombine() {
+        List<AlbumSuggestion> suggestions = index.suggest("floyd wa", 10);
+
+        assertEquals(List.of(2L), suggestions.stream().map(AlbumSuggestion::albumId).toList());
+    }
+
+    @Test
+    void testTypoStillMatches() {
+        List<AlbumSuggestion> suggestions = index.suggest("miels", 10);
+
+        assertEquals("Kind of Blue", suggestions.get(0).title());
+    }
+
+    @Test
+    void testTitlePrefixRanksFirst() {
+        List<AlbumSuggestion> suggestions = index.suggest("the", 10);
+
+        assertEquals(2, suggestions.size());
+        assertEquals("The Wall", suggestions.get(0).title()); // Shorter title wins a tie
+    }
+
+    @Test
+    void testReindexAndRemove() {
+        index.index(album(2L, "Animals", new Artist(1L, "Pink Floyd", null)));
+        assertTrue(index.suggest("wall", 10).isEmpty());
+        assertEquals(1, index.suggest("animals", 10).size());
+
+        index.remove(2L);
+        assertTrue(index.suggest("animals", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testRefreshIndexesChangedAndRemovesDeleted() {
+        // Another node renamed album 2, deleted album 3 and created album 4
+        AlbumRepository repository = mock(AlbumRepository.class);
+        ReflectionTestUtils.setField(index, "albumRepository", repository);
+        Artist pinkFloyd = new Artist(1L, "Pink Floyd", null);
+        when(repository.findByAlbumIdIn(List.of(2L, 3L, 4L)))
+                .thenReturn(List.of(album(2L, "Animals", pinkFloyd), album(4L, "Meddle", pinkFloyd)));
+
+        index.refresh(List.of(2L, 3L, 4L));
+
+        assertEquals(1, index.suggest("animals", 10).size());
+        assertEquals(1, index.suggest("meddle", 10).size());
+        assertTrue(index.suggest("kind", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+}
@@ -1,21 +1,32 @@
 package com.northcoders.recordapi.service;
 
+import com.northcoders.recordapi.dto.AlbumImportRow;
+import com.northcoders.recordapi.dto.BulkImportResult;
+import com.northcoders.recordapi.dto.StockReservation;
 import com.northcoders.recordapi.exception.AlbumAlreadyExistsException;
 import com.northcoders.recordapi.exception.AlbumNotFoundException;
+import com.northcoders.recordapi.exception.ArtistNotFoundException;
+import com.northcoders.recordapi.exception.InsufficientStockException;
 import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.AlbumChangeType;
 import com.northcoders.recordapi.model.Artist;
 import com.northcoders.recordapi.model.Genre;
 import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.ArtistRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
@@ -32,9 +43,150 @@ public class AlbumServiceTest {
     private AlbumCache albumCache;
 //    AlbumCache albumCache = new AlbumCache();
 
+    @Mock
+    private ArtistRepository artistRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private AlbumSearchIndex albumSearchIndex;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private AlbumChangeFeed albumChangeFeed;
+
+    @Mock
+    private StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Mock
+    private StockAdjustmentBuffer stockAdjustmentBuffer;
+
     @InjectMocks
     private AlbumServiceImpl albumService;
 
+    @Test
+    public void testImportAlbums_CreatesNewAndUpdatesExisting() {
+        // Arrange
+        Artist artist = new Artist(1L, "Pink Floyd", null);
+        Album existing = new Album("The Wall", artist, Genre.ROCK, 1979, 5, 19.99);
+        existing.setAlbumId(10L);
+        when(artistRepository.findAllById(Set.of(1L))).thenReturn(List.of(artist));
+        when(albumRepository.findByArtist_ArtistIdInAndTitleIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(existing));
+        List<AlbumImportRow> rows = List.of(
+                new AlbumImportRow("The Wall", 1L, Genre.ROCK, 1979, 50, 24.99),
+                new AlbumImportRow("Animals", 1L, Genre.ROCK, 1977, 20, 17.99));
+
+        // Act
+        BulkImportResult result = albumService.importAlbums(rows.iterator());
+
+        // Assert
+        assertEquals(new BulkImportResult(1, 1), result);
+        assertEquals(50, existing.getStock());
+        verify(albumRepository, times(1)).findByArtist_ArtistIdInAndTitleIn(anyCollection(), anyCollection());
+        verify(albumRepository, times(1)).saveAll(argThat(albums -> albums.iterator().next().getTitle().equals("Animals")));
+        // Once for the albums, once for the UPDATED outbox rows that need the versions that flush assigned
+        verify(entityManager, times(2)).flush();
+    }
+
+    @Test
+    public void testImportAlbums_UnknownArtist() {
+        // Arrange
+        when(artistRepository.findAllById(Set.of(7L))).thenReturn(List.of());
+        List<AlbumImportRow> rows = List.of(new AlbumImportRow("Animals", 7L, Genre.ROCK, 1977, 20, 17.99));
+
+        // Act & Assert
+        assertThrows(ArtistNotFoundException.class, () -> albumService.importAlbums(rows.iterator()));
+        verify(albumRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    public void testReserveStock_Success() {
+        // Arrange - the decrement matched, the re-read row shows what is left
+        Album album = new Album("Blue Train", new Artist(3L, "John Coltrane", null), Genre.JAZZ, 1957, 3, 15.99);
+        album.setAlbumId(5L);
+        when(albumRepository.decrementStock(eq(5L), eq(2), any())).thenReturn(1);
+        when(albumRepository.findById(5L)).thenReturn(Optional.of(album));
+
+        // Act
+        StockReservation reservation = albumService.reserveStock(5L, 2);
+
+        // Assert
+        assertEquals(new StockReservation(5L, 2, 3), reservation);
+        verify(albumCache, times(1)).putAlbum(5L, album);
+        verify(cacheInvalidationBus, times(1)).publish(5L);
+        verify(albumChangeFeed, times(1)).record(album, AlbumChangeType.UPDATED);
+        verify(stockPriceBroadcaster, times(1)).publish(album);
+    }
+
+    @Test
+    public void testReserveStock_NotEnoughLeft() {
+        // Arrange - the conditional update matched no row
+        Album album = new Album("Blue Train", new Artist(3L, "John Coltrane", null), Genre.JAZZ, 1957, 1, 15.99);
+        when(albumRepository.decrementStock(eq(5L), eq(2), any())).thenReturn(0);
+        when(albumRepository.findById(5L)).thenReturn(Optional.of(album));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> albumService.reserveStock(5L, 2));
+        verify(albumCache, times(0)).putAlbum(any(), any());
+    }
+
+    @Test
+    public void testAdjustStock_MoreThanAvailable_RefusedBeforeJournaling() {
+        // Arrange - 3 in the database, 2 already taken by adjustments waiting for the next flush
+        Album album = new Album("Blue Train", new Artist(3L, "John Coltrane", null), Genre.JAZZ, 1957, 3, 15.99);
+        when(albumCache.getOrLoad(eq(5L), any())).thenReturn(Optional.of(album));
+        when(stockAdjustmentBuffer.pendingDelta(5L)).thenReturn(-2L);
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> albumService.adjustStock(5L, -2));
+        verify(stockAdjustmentBuffer, never()).adjust(any(), anyInt());
+        albumService.adjustStock(5L, -1);
+        verify(stockAdjustmentBuffer, times(1)).adjust(5L, -1);
+    }
+
+    @Test
+    public void testCreateAlbum_StoredArtistUsedInsteadOfRequestBody() {
+        // Arrange - the request names artist 1 but makes up its name
+        Artist stored = new Artist(1L, "Pink Floyd", null);
+        Album album = new Album("Animals", new Artist(1L, "anything", null), Genre.ROCK, 1977, 20, 17.99);
+        when(artistRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(albumRepository.findByTitleAndArtistAndReleaseYear("Animals", stored, 1977)).thenReturn(Optional.empty());
+        when(albumRepository.saveAndFlush(album)).thenReturn(album);
+
+        // Act
+        Album saved = albumService.createAlbum(album);
+
+        // Assert
+        assertSame(stored, saved.getArtist());
+        verify(albumSearchIndex, times(1)).index(argThat(indexed -> indexed.getArtist() == stored));
+    }
+
+    @Test
+    public void testDeleteAlbum_CacheAndIndexTouchedOnlyAfterCommit() {
+        // Arrange
+        Album album = new Album("Blue Train", new Artist(3L, "John Coltrane", null), Genre.JAZZ, 1957, 3, 15.99);
+        album.setAlbumId(5L);
+        when(albumRepository.findById(5L)).thenReturn(Optional.of(album));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            albumService.deleteAlbum(5L);
+
+            // Assert - nothing evicted while the delete can still roll back
+            verify(albumCache, never()).evict(any());
+            verify(albumSearchIndex, never()).remove(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(albumCache, times(1)).evict(5L);
+            verify(albumSearchIndex, times(1)).remove(5L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
 //    @Test
 //    public void testGetAllAlbums_Success() {
 //        // Arrange
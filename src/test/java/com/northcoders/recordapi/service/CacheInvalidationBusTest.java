@@ -0,0 +1,95 @@
+package com.northcoders.recordapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheInvalidationBusTest {
+
+    // Records what a node's listener was told to evict
+    private static class RecordingListener implements CacheInvalidationBus.Listener {
+        private final List<Set<Long>> evictions = new ArrayList<>();
+
+        @Override
+        public void evict(Set<Long> albumIds) {
+            evictions.add(albumIds);
+        }
+
+        @Override
+        public void evictAll() {
+        }
+    }
+
+    @Test
+    public void testPublish_CoalescedAndDeliveredToOtherNodesOnly() {
+        // Arrange - two nodes on one in-process network
+        LoopbackInvalidationBus nodeA = new LoopbackInvalidationBus(300);
+        LoopbackInvalidationBus nodeB = new LoopbackInvalidationBus(300);
+        nodeB.join(nodeA);
+        RecordingListener listenerA = new RecordingListener();
+        RecordingListener listenerB = new RecordingListener();
+        nodeA.subscribe(listenerA);
+        nodeB.subscribe(listenerB);
+
+        // Act - a burst of writes on node A
+        nodeA.publish(1L);
+        nodeA.publish(1L);
+        nodeA.publish(List.of(2L, 1L));
+        nodeA.flush();
+        nodeA.flush(); // Nothing left to send
+
+        // Assert
+        assertEquals(List.of(Set.of(1L, 2L)), listenerB.evictions);
+        assertTrue(listenerA.evictions.isEmpty());
+    }
+
+    @Test
+    public void testFlush_SplitsLargeBatches() {
+        // Arrange
+        LoopbackInvalidationBus nodeA = new LoopbackInvalidationBus(2);
+        LoopbackInvalidationBus nodeB = new LoopbackInvalidationBus(2);
+        nodeB.join(nodeA);
+        RecordingListener listenerB = new RecordingListener();
+        nodeB.subscribe(listenerB);
+
+        // Act
+        nodeA.publish(List.of(1L, 2L, 3L, 4L, 5L));
+        nodeA.flush();
+
+        // Assert
+        assertEquals(3, listenerB.evictions.size());
+        assertEquals(5, listenerB.evictions.stream().mapToInt(Set::size).sum());
+    }
+
+    @Test
+    public void testFlush_FailedSendRetriedOnNextFlush() {
+        // Arrange - a transport that is down for the first message
+        List<List<Long>> sent = new ArrayList<>();
+        CoalescingInvalidationBus bus = new CoalescingInvalidationBus(2) {
+            private boolean down = true;
+
+            @Override
+            protected void send(String origin, List<Long> albumIds) {
+                if (down) {
+                    down = false;
+                    throw new IllegalStateException("Transport unavailable");
+                }
+                sent.add(List.copyOf(albumIds));
+            }
+        };
+        bus.publish(List.of(1L, 2L, 3L));
+
+        // Act
+        bus.flush();
+        bus.flush();
+
+        // Assert - nothing was dropped
+        assertEquals(Set.of(1L, 2L, 3L), sent.stream().flatMap(List::stream).collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,218 @@
+package com.northcoders.recordapi.service;
+
+import com.northcoders.recordapi.config.StockBufferProperties;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.AlbumChangeType;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import com.northcoders.recordapi.model.RejectedStockAdjustment;
+import com.northcoders.recordapi.model.StockJournalCheckpoint;
+import com.northcoders.recordapi.repository.AlbumRepository;
+import com.northcoders.recordapi.repository.RejectedStockAdjustmentRepository;
+import com.northcoders.recordapi.repository.StockJournalCheckpointRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+public class StockAdjustmentBufferTest {
+
+    @TempDir
+    private Path journalDirectory;
+
+    @Spy
+    private StockBufferProperties properties = new StockBufferProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private RejectedStockAdjustmentRepository rejectedAdjustmentRepository;
+
+    @Mock
+    private AlbumCache albumCache;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private AlbumRepository albumRepository;
+
+    @Mock
+    private StockPriceBroadcaster stockPriceBroadcaster;
+
+    @Mock
+    private AlbumChangeFeed albumChangeFeed;
+
+    @Mock
+    private Executor flushExecutor;
+
+    @InjectMocks
+    private StockAdjustmentBuffer buffer;
+
+    private boolean open;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (open) {
+            buffer.close();
+        }
+    }
+
+    private void open() throws Exception {
+        properties.setJournalDirectory(journalDirectory);
+        properties.setCheckpointName("node-1");
+        when(checkpointRepository.findById("node-1")).thenReturn(Optional.empty());
+        buffer.open();
+        open = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    public void testFlush_DeltaBelowZeroRecordedOnceAndDropped() throws Exception {
+        // Arrange
+        open();
+        runTransactionsInline();
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        // Album 1 has the stock for its delta, album 2 has none to take
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> invocation.<List<Object[]>>getArgument(1)
+                .stream().mapToInt(row -> row[2].equals(2L) && (Long) row[0] < 0 ? 0 : 1).toArray());
+        when(albumRepository.existsById(2L)).thenReturn(true);
+        buffer.adjust(1L, -2);
+        buffer.adjust(2L, -5);
+
+        // Act
+        buffer.flush();
+        buffer.adjust(2L, 3); // A later restock is applied on its own, not netted against the refused delta
+        buffer.flush();
+
+        // Assert
+        assertEquals(0, buffer.pendingDelta(1L));
+        assertEquals(0, buffer.pendingDelta(2L));
+        assertEquals(1.0, meterRegistry.get("stock.adjustments.rejected").counter().count());
+        ArgumentCaptor<List<RejectedStockAdjustment>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(rejectedAdjustmentRepository, times(2)).saveAll(recorded.capture());
+        List<RejectedStockAdjustment> refused = recorded.getAllValues().get(0);
+        assertEquals(1, refused.size());
+        assertEquals(2L, refused.get(0).getAlbumId());
+        assertEquals(-5, refused.get(0).getDelta());
+        assertEquals("node-1", refused.get(0).getNode());
+        assertTrue(recorded.getAllValues().get(1).isEmpty());
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        assertEquals(3L, batches.getAllValues().get(1).get(0)[0]);
+        // Both segments are checkpointed, nothing is replayed after a restart
+        ArgumentCaptor<StockJournalCheckpoint> checkpoint = ArgumentCaptor.forClass(StockJournalCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(checkpoint.capture());
+        assertEquals("node-1", checkpoint.getValue().getName());
+        buffer.close();
+        open = false;
+        StockJournal reopened = new StockJournal(journalDirectory, false);
+        assertEquals(Map.of(), reopened.replay(checkpoint.getValue().getSegment()));
+        reopened.close();
+    }
+
+    @Test
+    public void testFlush_AppliedAlbumsRecordedInChangeFeed() throws Exception {
+        // Arrange
+        open();
+        runTransactionsInline();
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        Album album = new Album("Blue Train", new Artist(3L, "John Coltrane", null), Genre.JAZZ, 1957, 7, 15.99);
+        album.setAlbumId(4L);
+        when(albumRepository.findAllById(List.of(4L))).thenReturn(List.of(album));
+        buffer.adjust(4L, 2);
+
+        // Act
+        buffer.flush();
+
+        // Assert - the outbox row is written in the flush transaction, subscribers get the re-read album
+        verify(albumChangeFeed).record(album, AlbumChangeType.UPDATED);
+        verify(stockPriceBroadcaster).publish(List.of(album));
+    }
+
+    @Test
+    public void testFlush_DeltaForDeletedAlbumDropped() throws Exception {
+        // Arrange
+        open();
+        runTransactionsInline();
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+        when(albumRepository.existsById(3L)).thenReturn(false);
+        buffer.adjust(3L, -1);
+
+        // Act
+        buffer.flush();
+
+        // Assert
+        assertEquals(0, buffer.pendingDelta(3L));
+        assertEquals(0.0, meterRegistry.get("stock.adjustments.rejected").counter().count());
+    }
+
+    @Test
+    public void testOpen_BlankCheckpointName_FailsStartup() {
+        // Arrange
+        properties.setJournalDirectory(journalDirectory);
+        properties.setCheckpointName(" ");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> buffer.open());
+        verifyNoInteractions(checkpointRepository);
+    }
+
+    @Test
+    public void testCheckpointName_DefaultsToHostName() {
+        // Act & Assert
+        String name = new StockBufferProperties().getCheckpointName();
+        assertNotNull(name);
+        assertFalse(name.isBlank());
+        assertNotEquals("default", name);
+    }
+}
@@ -0,0 +1,59 @@
+package com.northcoders.recordapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReplay_AfterCrash() throws IOException {
+        // Arrange - written but never closed, as if the process died
+        StockJournal journal = new StockJournal(directory, false);
+        journal.append(1L, -3);
+        journal.append(1L, -2);
+        journal.append(2L, 10);
+
+        // Act
+        Map<Long, Long> replayed = new StockJournal(directory, false).replay(0);
+
+        // Assert
+        assertEquals(Map.of(1L, -5L, 2L, 10L), replayed);
+    }
+
+    @Test
+    public void testReplay_SkipsCheckpointedSegmentsAndTornRecord() throws IOException {
+        // Arrange
+        StockJournal journal = new StockJournal(directory, false);
+        journal.append(1L, 4);
+        long applied = journal.rotate();
+        journal.append(1L, -1);
+        journal.close();
+        try (var files = Files.list(directory)) {
+            Path current = files.sorted().reduce((first, second) -> second).orElseThrow();
+            Files.write(current, new byte[]{0, 0, 0}, StandardOpenOption.APPEND); // Half-written record
+        }
+
+        // Act
+        StockJournal reopened = new StockJournal(directory, false);
+        reopened.deleteUpTo(applied);
+        Map<Long, Long> replayed = reopened.replay(applied);
+
+        // Assert
+        assertEquals(Map.of(1L, -1L), replayed);
+        try (var files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(String.format("%020d", applied))));
+        }
+    }
+}
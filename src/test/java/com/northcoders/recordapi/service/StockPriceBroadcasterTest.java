@@ -0,0 +1,124 @@
+package com.northcoders.recordapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordapi.config.StockStreamProperties;
+import com.northcoders.recordapi.model.Album;
+import com.northcoders.recordapi.model.Artist;
+import com.northcoders.recordapi.model.Genre;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StockPriceBroadcasterTest {
+
+    // Captures the frames it is asked to write, optionally blocking like a client that stopped reading
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Set<DataWithMediaType>> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+        private final CountDownLatch release;
+
+        RecordingEmitter(int expected, CountDownLatch release) {
+            this.received = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            frames.add(items);
+            received.countDown();
+        }
+    }
+
+    private static Album album(Long id, Genre genre, int stock) {
+        Album album = new Album("Album " + id, new Artist(1L, "Artist 1", null), genre, 2000, stock, 9.99);
+        album.setAlbumId(id);
+        album.setVersion(1L);
+        return album;
+    }
+
+    private StockPriceBroadcaster broadcaster(int queueCapacity) {
+        StockStreamProperties properties = new StockStreamProperties();
+        properties.setQueueCapacity(queueCapacity);
+        return new StockPriceBroadcaster(new ObjectMapper(), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testPublish_SameFrameSharedByMatchingSubscribers() throws InterruptedException {
+        // Arrange - one subscriber by id, one by genre, one not interested
+        StockPriceBroadcaster broadcaster = broadcaster(8);
+        CountDownLatch open = new CountDownLatch(0);
+        RecordingEmitter byId = new RecordingEmitter(1, open);
+        RecordingEmitter byGenre = new RecordingEmitter(1, open);
+        RecordingEmitter other = new RecordingEmitter(1, open);
+        broadcaster.subscribe(byId, Set.of(1L), Set.of(), List.of());
+        broadcaster.subscribe(byGenre, Set.of(), Set.of(Genre.JAZZ), List.of());
+        broadcaster.subscribe(other, Set.of(2L), Set.of(Genre.ROCK), List.of());
+
+        // Act
+        broadcaster.publish(album(1L, Genre.JAZZ, 4));
+
+        // Assert
+        assertTrue(byId.received.await(5, TimeUnit.SECONDS));
+        assertTrue(byGenre.received.await(5, TimeUnit.SECONDS));
+        assertSame(byId.frames.get(0), byGenre.frames.get(0));
+        assertTrue(other.frames.isEmpty());
+    }
+
+    @Test
+    public void testPublish_UnchangedOrOlderStateNotSentAgain() throws InterruptedException {
+        // Arrange
+        StockPriceBroadcaster broadcaster = broadcaster(8);
+        RecordingEmitter emitter = new RecordingEmitter(2, new CountDownLatch(0));
+        broadcaster.subscribe(emitter, Set.of(1L), Set.of(), List.of());
+        Album older = album(1L, Genre.JAZZ, 9);
+        older.setVersion(0L);
+        Album newer = album(1L, Genre.JAZZ, 3);
+        newer.setVersion(2L);
+
+        // Act - the same state re-read by another node's invalidation, then a late older version
+        broadcaster.publish(album(1L, Genre.JAZZ, 4));
+        broadcaster.publish(album(1L, Genre.JAZZ, 4));
+        broadcaster.publish(older);
+        broadcaster.publish(newer);
+
+        // Assert - frames go out in order, so the second one is the newer state
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS));
+        assertTrue(emitter.frames.get(1).stream().anyMatch(item -> item.getData().toString().contains("\"stock\":3")));
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void testPublish_SlowSubscriberDropped() throws InterruptedException {
+        // Arrange - the client never reads, so its queue fills up
+        StockPriceBroadcaster broadcaster = broadcaster(2);
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(1, stuck);
+        broadcaster.subscribe(slow, Set.of(1L), Set.of(), List.of());
+
+        // Act - one event is being written, two queue up, the next one overflows
+        for (int stock = 10; stock > 0; stock--) {
+            broadcaster.publish(album(1L, Genre.JAZZ, stock));
+        }
+
+        // Assert
+        assertEquals(0, broadcaster.subscriberCount());
+        stuck.countDown();
+        broadcaster.shutdown();
+    }
+}